@@ -0,0 +1,60 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.simulation.Simulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Simulation.checkCollisions: rebuilds the spatial index and tests every friendly projectile
+// against nearby ships. Ships cannot sink and hit projectiles are switched back on before each
+// call, so every call sees the same world.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionsBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    public int entities;
+
+    private Simulation simulation;
+    private EntityStore.Bucket projectiles;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        simulation = Worlds.scattered(entities, 0.0f, 0.2f);
+        EntityStore store = simulation.getEntityStore();
+        EntityStore.Bucket ships = store.getBucket(EntityKind.SHIP);
+        Arrays.fill(ships.getHealth(), 0, ships.size(), Float.MAX_VALUE);
+        projectiles = store.getBucket(EntityKind.PROJECTILE);
+    }
+
+    @Setup(Level.Invocation)
+    public void reactivateProjectiles() {
+        int[] flags = projectiles.getFlags();
+        for (int slot = 0; slot < projectiles.size(); slot++) {
+            flags[slot] |= EntityStore.FLAG_ACTIVE;
+        }
+    }
+
+    @Benchmark
+    public Simulation checkCollisions() {
+        simulation.checkCollisions();
+        return simulation;
+    }
+}
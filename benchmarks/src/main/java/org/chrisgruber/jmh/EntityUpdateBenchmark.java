@@ -0,0 +1,77 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.simulation.CommandBuffer;
+import org.chrisgruber.simulation.Simulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Entity.update over every active entity, one kind after another like the update phase, on a
+// single thread. The step is zero, so entities run their full update without moving, expiring
+// or cooling down and every call sees the same population. Towers fire once on the first call
+// and after that only check their cooldown; targeting has its own benchmark.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityUpdateBenchmark {
+    public enum Mix {
+        // Shares of towers and projectiles; the rest are ships
+        SHIPS(0.0f, 0.0f),
+        MIXED(0.05f, 0.25f),
+        PROJECTILES(0.05f, 0.75f);
+
+        final float towerShare, projectileShare;
+
+        Mix(float towerShare, float projectileShare) {
+            this.towerShare = towerShare;
+            this.projectileShare = projectileShare;
+        }
+    }
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int entities;
+
+    @Param({"SHIPS", "MIXED", "PROJECTILES"})
+    public Mix mix;
+
+    private EntityStore store;
+    private final CommandBuffer commands = new CommandBuffer();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Simulation simulation = Worlds.scattered(entities, mix.towerShare, mix.projectileShare);
+        simulation.checkCollisions(); // builds the index towers target through
+        store = simulation.getEntityStore();
+    }
+
+    @Benchmark
+    public CommandBuffer update() {
+        for (EntityKind kind : EntityKind.values()) {
+            EntityStore.Bucket bucket = store.getBucket(kind);
+            int[] flags = bucket.getFlags();
+            for (int slot = 0; slot < bucket.size(); slot++) {
+                if ((flags[slot] & EntityStore.FLAG_ACTIVE) != 0) {
+                    bucket.get(slot).update(0f, commands);
+                }
+            }
+        }
+        commands.clear();
+        return commands;
+    }
+}
@@ -0,0 +1,57 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.log.EventLog;
+import org.chrisgruber.log.GameEvent;
+import org.chrisgruber.log.LogLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+// Producer-side cost of logging a damage event: at INFO it is filtered out, at DEBUG it is
+// written into the ring for the log's own thread to format into a null writer. When the writer
+// falls behind, events are dropped rather than waited for, which is also what play would do.
+// -prof gc counts the log thread's formatting too; the calling thread itself allocates nothing,
+// which AllocationTest checks.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventLogBenchmark {
+    @Param({"INFO", "DEBUG"})
+    public LogLevel level;
+
+    private EventLog log;
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        log = new EventLog(level, Writer.nullWriter(), 1 << 16);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        log.close();
+    }
+
+    @Benchmark
+    public EventLog logDamage() {
+        int i = tick++;
+        log.log(GameEvent.DAMAGE, i, i, 0.5f, 0.5f, 10f, i % 20);
+        return log;
+    }
+}
@@ -0,0 +1,43 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.world.FlowField;
+import org.chrisgruber.world.IslandGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Computing a flow field to the centre of the island, which a new field does straight away.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlowFieldBenchmark {
+    @Param({"100", "256", "512", "1024", "2048"})
+    public int gridSize;
+
+    private IslandGenerator island;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        island = new IslandGenerator(gridSize, gridSize, Worlds.SEED);
+        island.generateIsland();
+    }
+
+    @Benchmark
+    public FlowField compute() {
+        return new FlowField(island, gridSize / 2, gridSize / 2);
+    }
+}
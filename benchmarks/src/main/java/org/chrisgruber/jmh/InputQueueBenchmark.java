@@ -0,0 +1,50 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.input.InputEvent;
+import org.chrisgruber.input.InputQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Pushing input events and draining them on one thread, a frame's worth of events at a time:
+// the cost per event of going through the queue, without contention.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputQueueBenchmark {
+    private static final int EVENTS_PER_FRAME = 100;
+
+    private final InputQueue queue = new InputQueue(1024);
+    private final Counter counter = new Counter();
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_FRAME)
+    public long pushAndDrain() {
+        for (int i = 0; i < EVENTS_PER_FRAME; i++) {
+            queue.push(InputEvent.KEY, i, 1, 0, 0, 0);
+        }
+        queue.drain(counter);
+        return counter.count;
+    }
+
+    private static class Counter implements InputQueue.Listener {
+        long count = 0;
+
+        @Override
+        public void onInput(InputEvent event, int code, int action, float x, float y, float value, long timeNanos) {
+            count++;
+        }
+    }
+}
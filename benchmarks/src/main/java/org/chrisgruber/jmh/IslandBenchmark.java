@@ -0,0 +1,67 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.world.IslandGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// IslandGenerator.generateIsland, including the land bitmap and coast distance field, and the
+// land bitmap alone. The island is a pure function of the seed, so each call builds the same one.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IslandBenchmark {
+    @Param({"100", "250", "500", "1000", "4096"})
+    public int gridSize;
+
+    // 1 generates on the calling thread
+    @Param({"1"})
+    public int threads;
+
+    private IslandGenerator generator;
+    private long[] landBits;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        generator = new IslandGenerator(gridSize, gridSize, Worlds.SEED);
+        generator.setPool(pool);
+        landBits = new long[(gridSize * gridSize + 63) / 64];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public IslandGenerator generateIsland() {
+        generator.generateIsland();
+        return generator;
+    }
+
+    @Benchmark
+    public long[] generateLand() {
+        IslandGenerator.generateLand(gridSize, gridSize, Worlds.SEED, pool, landBits);
+        return landBits;
+    }
+}
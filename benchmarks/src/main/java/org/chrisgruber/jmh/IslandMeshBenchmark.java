@@ -0,0 +1,49 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.render.IslandMesher;
+import org.chrisgruber.render.SpriteBatch;
+import org.chrisgruber.world.IslandGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// IslandMesher greedy-meshing the whole island into a SpriteBatch, as the renderer does when the
+// map changes. The batch is reused, so after the first call it no longer grows.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IslandMeshBenchmark {
+    @Param({"100", "512", "1024", "2048", "4096"})
+    public int gridSize;
+
+    private IslandGenerator island;
+    private final IslandMesher mesher = new IslandMesher();
+    private final SpriteBatch batch = new SpriteBatch();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        island = new IslandGenerator(gridSize, gridSize, Worlds.SEED);
+        island.generateIsland();
+    }
+
+    @Benchmark
+    public SpriteBatch build() {
+        batch.clear();
+        mesher.build(island, batch);
+        return batch;
+    }
+}
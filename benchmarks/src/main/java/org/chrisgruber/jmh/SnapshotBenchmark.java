@@ -0,0 +1,67 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.simulation.Simulation;
+import org.chrisgruber.simulation.WorldSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// WorldSnapshot.save and load through a temporary file, for a world of ships, towers and
+// projectiles on a generated island that has run for a few seconds.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+    private static final int SETTLE_TICKS = 200;
+
+    @Param({"1000", "10000", "100000"})
+    public int entities;
+
+    private Simulation simulation;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        simulation = Worlds.scattered(entities, 0.05f, 0.15f);
+        simulation.init();
+        for (int i = 0; i < SETTLE_TICKS; i++) {
+            simulation.update(1.0f / 60);
+        }
+        file = Files.createTempFile("snapshot", ".bin");
+        WorldSnapshot.save(simulation, file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Path save() throws IOException {
+        WorldSnapshot.save(simulation, file);
+        return file;
+    }
+
+    @Benchmark
+    public Simulation load() throws IOException {
+        return WorldSnapshot.load(file);
+    }
+}
@@ -0,0 +1,40 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.simulation.Simulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Spawning ships into a new simulation whose entity store is sized for them up front, so no
+// column is regrown. Run with -prof gc: gc.alloc.rate.norm divided by the ship count is what
+// each ship costs on the heap, its columns and its entity object together.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int ships;
+
+    @Benchmark
+    public Simulation spawnShips() {
+        Simulation simulation = new Simulation(100, Worlds.SEED);
+        simulation.getEntityStore().ensureCapacity(EntityKind.SHIP, ships);
+        for (int i = 0; i < ships; i++) {
+            simulation.spawnShip(i, i);
+        }
+        return simulation;
+    }
+}
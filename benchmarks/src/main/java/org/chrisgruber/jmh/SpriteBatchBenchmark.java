@@ -0,0 +1,48 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.render.EntityRenderer;
+import org.chrisgruber.render.SpriteBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// EntityRenderer filling a SpriteBatch with every entity, no camera and no GPU: the CPU side of
+// drawing a frame. The batch is reused, so after the first call it no longer grows.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpriteBatchBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int entities;
+
+    private EntityStore store;
+    private final EntityRenderer renderer = new EntityRenderer();
+    private final SpriteBatch batch = new SpriteBatch();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = Worlds.scattered(entities, 0.05f, 0.15f).getEntityStore();
+    }
+
+    @Benchmark
+    public SpriteBatch build() {
+        batch.clear();
+        renderer.build(store, batch, 1.0f);
+        return batch;
+    }
+}
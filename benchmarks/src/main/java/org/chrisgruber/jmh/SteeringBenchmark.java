@@ -0,0 +1,66 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.entity.EnemyShip;
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.simulation.CommandBuffer;
+import org.chrisgruber.simulation.Simulation;
+import org.chrisgruber.wave.SpawnEdge;
+import org.chrisgruber.world.FlowField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Steering every ship, sailing straight at its target or following the shared flow field. The
+// cost per ship should stay flat as the count grows, since each ship only looks up its next
+// cell. The step is zero, so the ships stay where they spawned at the edges.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SteeringBenchmark {
+    @Param({"1000", "10000", "50000"})
+    public int ships;
+
+    @Param({"true", "false"})
+    public boolean flowField;
+
+    private EntityStore.Bucket bucket;
+    private final CommandBuffer commands = new CommandBuffer();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Simulation simulation = new Simulation(100, Worlds.SEED);
+        simulation.init();
+        for (int i = 0; i < ships; i++) {
+            simulation.spawnEnemyAtEdge(SpawnEdge.ANY);
+        }
+        bucket = simulation.getEntityStore().getBucket(EntityKind.SHIP);
+        FlowField field = flowField ? simulation.getFlowField(0, 0) : null;
+        for (int slot = 0; slot < bucket.size(); slot++) {
+            ((EnemyShip) bucket.get(slot)).setNavigation(field);
+        }
+    }
+
+    @Benchmark
+    public CommandBuffer steer() {
+        for (int slot = 0; slot < bucket.size(); slot++) {
+            bucket.get(slot).update(0f, commands);
+        }
+        commands.clear();
+        return commands;
+    }
+}
@@ -0,0 +1,63 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.simulation.Simulation;
+import org.chrisgruber.simulation.SpatialIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Tower.findClosestEnemy for every tower: the nearest ship within attack range, looked up
+// through the spatial index the simulation builds once per tick.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TargetingBenchmark {
+    private static final float ATTACK_RANGE = 0.5f;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int entities;
+
+    // Share of the entities that are towers; the rest are ships
+    @Param({"0.1"})
+    public float towerShare;
+
+    private SpatialIndex index;
+    private float[] towerX, towerY;
+    private int towerCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Simulation simulation = Worlds.scattered(entities, towerShare, 0.0f);
+        simulation.checkCollisions(); // builds the index
+
+        index = simulation.getSpatialIndex();
+        EntityStore.Bucket towers = simulation.getEntityStore().getBucket(EntityKind.TOWER);
+        towerCount = towers.size();
+        towerX = towers.getX();
+        towerY = towers.getY();
+    }
+
+    @Benchmark
+    public void findClosestEnemy(Blackhole blackhole) {
+        for (int t = 0; t < towerCount; t++) {
+            blackhole.consume(index.findNearest(towerX[t], towerY[t], ATTACK_RANGE, EntityKind.SHIP));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.world.ChunkedTerrain;
+import org.chrisgruber.world.IslandGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// ChunkedTerrain.isLand on a generated map, reopened from its file with only a few chunks
+// resident. Local reads stay around a point that drifts across the map, like ships around a
+// camera, so they stay within a few chunks at a time; scattered reads land anywhere, so once the
+// map has more chunks than may be resident most of them map a chunk.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerrainBenchmark {
+    private static final int READS = 1 << 16;
+
+    @Param({"4096", "16384"})
+    public int size;
+
+    @Param({"1024"})
+    public int chunkSize;
+
+    @Param({"32"})
+    public int maxResident;
+
+    private Path file;
+    private ChunkedTerrain terrain;
+    private final int[] localX = new int[READS], localY = new int[READS];
+    private final int[] scatteredX = new int[READS], scatteredY = new int[READS];
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("terrain", ".bin");
+        try (ChunkedTerrain written = ChunkedTerrain.create(file, size, size, chunkSize, maxResident)) {
+            IslandGenerator.generateIsland(Worlds.SEED, written, ForkJoinPool.commonPool());
+        }
+        terrain = ChunkedTerrain.open(file, maxResident);
+
+        Random random = new Random(Worlds.SEED);
+        int window = 2 * chunkSize;
+        float centerX = size / 2f, centerY = size / 2f;
+        for (int i = 0; i < READS; i++) {
+            if ((i & 0xFFF) == 0) {
+                centerX = Math.max(window, Math.min(size - window, centerX + (random.nextFloat() - 0.5f) * chunkSize));
+                centerY = Math.max(window, Math.min(size - window, centerY + (random.nextFloat() - 0.5f) * chunkSize));
+            }
+            localX[i] = (int) centerX + random.nextInt(window) - window / 2;
+            localY[i] = (int) centerY + random.nextInt(window) - window / 2;
+            scatteredX[i] = random.nextInt(size);
+            scatteredY[i] = random.nextInt(size);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        terrain.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READS)
+    public int localReads() {
+        return countLand(localX, localY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READS)
+    public int scatteredReads() {
+        return countLand(scatteredX, scatteredY);
+    }
+
+    private int countLand(int[] xs, int[] ys) {
+        int land = 0;
+        for (int i = 0; i < READS; i++) {
+            land += terrain.isLand(xs[i], ys[i]) ? 1 : 0;
+        }
+        return land;
+    }
+}
@@ -0,0 +1,83 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.simulation.Simulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// One full Simulation.update at 60 Hz on a generated island: spawning, every entity update,
+// collisions and compaction. Towers stand on land and ships come in from the edges as in play;
+// sunk ships are replaced before each tick so the population holds steady.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickBenchmark {
+    private static final float STEP = 1.0f / 60;
+    private static final int SETTLE_TICKS = 300;
+
+    // Ships and towers; one in twenty is a tower
+    @Param({"100", "1000", "10000", "100000"})
+    public int entities;
+
+    // 1 runs the update phases on the calling thread
+    @Param({"1"})
+    public int threads;
+
+    private Simulation simulation;
+    private EntityStore store;
+    private ForkJoinPool pool;
+    private int ships;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        simulation = new Simulation(100, Worlds.SEED);
+        simulation.init();
+        store = simulation.getEntityStore();
+
+        // Towers on random land cells, next to the one init() places
+        simulation.placeTowersOnLand(Math.max(1, entities / 20) - 1, Worlds.SEED);
+        ships = entities - store.size(EntityKind.TOWER);
+
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        simulation.setPool(pool);
+
+        // Let projectiles get into the air before measuring
+        for (int i = 0; i < SETTLE_TICKS; i++) {
+            tick();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Simulation tick() {
+        while (store.size(EntityKind.SHIP) < ships) {
+            simulation.spawnEnemy();
+        }
+        simulation.update(STEP);
+        return simulation;
+    }
+}
@@ -0,0 +1,74 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.render.Camera;
+import org.chrisgruber.render.EntityRenderer;
+import org.chrisgruber.render.SpriteBatch;
+import org.chrisgruber.simulation.Simulation;
+import org.chrisgruber.simulation.SpatialIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// EntityRenderer with and without camera culling as the world grows around the default view.
+// Ships are spread at the same density over an ever larger area, so the view keeps seeing about
+// the same number of them: the culled build should stay flat while the full build grows.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewCullingBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int ships;
+
+    private EntityStore store;
+    private SpatialIndex index;
+    private Camera camera;
+    private final EntityRenderer renderer = new EntityRenderer();
+    private final SpriteBatch batch = new SpriteBatch();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(Worlds.SEED);
+        float halfExtent = (float) Math.sqrt(ships) * 0.01f;
+        Simulation simulation = new Simulation(100, Worlds.SEED);
+        for (int i = 0; i < ships; i++) {
+            simulation.spawnShip(Worlds.coord(random, halfExtent), Worlds.coord(random, halfExtent));
+        }
+        store = simulation.getEntityStore();
+        store.savePreviousPositions();
+        simulation.checkCollisions(); // builds the index
+
+        index = simulation.getSpatialIndex();
+        camera = new Camera(1024, 768);
+        camera.setBounds(-halfExtent, -halfExtent, halfExtent, halfExtent);
+    }
+
+    @Benchmark
+    public SpriteBatch buildAll() {
+        batch.clear();
+        renderer.build(store, batch, 1.0f);
+        return batch;
+    }
+
+    @Benchmark
+    public SpriteBatch buildView() {
+        batch.clear();
+        renderer.build(store, index, batch, 1.0f, camera);
+        return batch;
+    }
+}
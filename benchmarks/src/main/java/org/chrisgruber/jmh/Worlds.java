@@ -0,0 +1,46 @@
+package org.chrisgruber.jmh;
+
+import org.chrisgruber.simulation.Simulation;
+
+import java.util.Random;
+
+// World setups shared by the benchmarks. Entities are scattered over a square that grows with
+// the entity count, so the number of neighbours per query stays about the same at any size.
+final class Worlds {
+    static final long SEED = 42;
+
+    private Worlds() {
+    }
+
+    static float halfExtent(int entities) {
+        return (float) Math.sqrt(entities) * 0.1f;
+    }
+
+    static float coord(Random random, float halfExtent) {
+        return (random.nextFloat() * 2 - 1) * halfExtent;
+    }
+
+    // Ships, towers and in-flight projectiles in the given shares of the entity count
+    static Simulation scattered(int entities, float towerShare, float projectileShare) {
+        Random random = new Random(SEED);
+        float halfExtent = halfExtent(entities);
+        int towers = (int) (entities * towerShare);
+        int projectiles = (int) (entities * projectileShare);
+        int ships = entities - towers - projectiles;
+
+        Simulation simulation = new Simulation(100, SEED);
+        for (int i = 0; i < ships; i++) {
+            simulation.spawnShip(coord(random, halfExtent), coord(random, halfExtent));
+        }
+        for (int i = 0; i < towers; i++) {
+            simulation.addTower(coord(random, halfExtent), coord(random, halfExtent));
+        }
+        for (int i = 0; i < projectiles; i++) {
+            float x = coord(random, halfExtent);
+            float y = coord(random, halfExtent);
+            simulation.spawnProjectile(x, y, coord(random, halfExtent), coord(random, halfExtent),
+                    10f, 0.03f, 0.6f, true);
+        }
+        return simulation;
+    }
+}
@@ -1,26 +1,43 @@
 package org.chrisgruber;
 
-import org.chrisgruber.entity.EnemyShip;
-import org.chrisgruber.entity.Entity;
-import org.chrisgruber.entity.Projectile;
-import org.chrisgruber.entity.Tower;
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.input.InputEvent;
 import org.chrisgruber.input.InputHandler;
-import org.chrisgruber.world.IslandGenerator;
+import org.chrisgruber.input.InputQueue;
+import org.chrisgruber.log.EventLog;
+import org.chrisgruber.log.LogLevel;
+import org.chrisgruber.metrics.FrameProfiler;
+import org.chrisgruber.metrics.InputLatency;
+import org.chrisgruber.metrics.MetricsWriter;
+import org.chrisgruber.metrics.Phase;
+import org.chrisgruber.render.Camera;
+import org.chrisgruber.render.ChunkedIslandMesh;
+import org.chrisgruber.render.EntityRenderer;
+import org.chrisgruber.render.GLSpriteRenderer;
+import org.chrisgruber.render.MetricsOverlay;
+import org.chrisgruber.render.SpriteBatch;
+import org.chrisgruber.replay.ReplayRecorder;
+import org.chrisgruber.simulation.FixedTimestep;
+import org.chrisgruber.simulation.Simulation;
+import org.chrisgruber.util.Options;
 import org.lwjgl.Version;
 import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.glfw.GLFWVidMode;
 import org.lwjgl.opengl.GL;
 import org.lwjgl.system.MemoryStack;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.nio.IntBuffer;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.lwjgl.glfw.Callbacks.glfwFreeCallbacks;
 import static org.lwjgl.glfw.GLFW.*;
-import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL33C.*;
 import static org.lwjgl.system.MemoryStack.stackPush;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
@@ -32,35 +49,115 @@ public class Game {
 
     // Game world properties
     private final int GRID_SIZE = 100;
-    private IslandGenerator islandGenerator;
 
-    // Game entities
-    private List<Entity> entities = new ArrayList<>();
-    private Random random = new Random();
-    private float spawnTimer = 0;
-    private final float SPAWN_INTERVAL = 10.0f; // Spawn enemy every 5 seconds
+    // Game simulation (entities, spawning, collisions, island)
+    private final Simulation simulation;
+
+    // Optional replay log of the session's seed and inputs
+    private final Path recordPath;
+    private ReplayRecorder recorder;
+
+    // Game events are formatted and printed by a background thread
+    private final EventLog eventLog;
 
     // The window handle
     private long window;
 
     // Game loop variables
     private boolean running = false;
-    private float deltaTime = 0;
-    private float lastFrameTime = 0;
-
-    // Input handler
-    private InputHandler inputHandler;
-
-    // Temporary list for new entities during update
-    private List<Entity> entitiesToAdd = new ArrayList<>();
-    private boolean isUpdating = false;
+    private double lastFrameTime = 0;
+
+    // The simulation advances in fixed ticks; rendering runs at whatever rate the display allows
+    // and interpolates between the last two ticks
+    private static final int DEFAULT_TICK_RATE = 60;
+    private static final int MAX_TICKS_PER_FRAME = 5;
+    private final FixedTimestep timestep;
+    private final boolean vsync;
+
+    // GLFW callbacks only queue input; it is applied at the start of each frame, between ticks
+    private final InputQueue inputQueue = new InputQueue(1024);
+    private final InputQueue.Listener inputListener = this::applyInput;
+    private final InputHandler inputHandler = new InputHandler();
+
+    // Latest cursor position, kept by its callback so clicks and scrolls need not query it
+    private double cursorX, cursorY;
+
+    // Input applied this frame, waiting for the buffer swap that shows its effect
+    private final InputLatency inputLatency = new InputLatency();
+    private InputEvent[] shownEvent = new InputEvent[64];
+    private long[] shownInputTime = new long[64];
+    private int shownCount = 0;
+    private long appliedTime;
+
+    // Rendering: geometry is gathered into one batch per frame and drawn in a single call
+    private final SpriteBatch spriteBatch = new SpriteBatch();
+    private final EntityRenderer entityRenderer = new EntityRenderer();
+    private GLSpriteRenderer spriteRenderer;
+
+    // The island is greedy-meshed in chunks and kept on the GPU until the map changes;
+    // only chunks in view are drawn
+    private ChunkedIslandMesh islandMesh;
+
+    // View onto the world: WASD/arrow keys pan, the mouse wheel zooms at the cursor
+    private final Camera camera = new Camera(WIDTH, HEIGHT);
+    private static final float PAN_SPEED = 1.0f; // View heights per second
+    private static final float ZOOM_STEP = 1.1f;
+
+    // Per-phase frame timings, summarized once a second in the title bar and optionally on
+    // screen (F3) and in a metrics file
+    private final FrameProfiler profiler = new FrameProfiler(1.0);
+    private final MetricsOverlay metricsOverlay = new MetricsOverlay();
+    private final Path metricsPath;
+    private MetricsWriter metricsWriter;
+    private boolean showMetrics = false;
+
+    public Game(int tickRate, boolean vsync, long seed, Path recordPath, LogLevel logLevel, Path metricsPath) {
+        this.timestep = new FixedTimestep(tickRate, MAX_TICKS_PER_FRAME);
+        this.vsync = vsync;
+        this.simulation = new Simulation(GRID_SIZE, seed);
+        this.recordPath = recordPath;
+        this.eventLog = new EventLog(logLevel, new BufferedWriter(new OutputStreamWriter(System.out)), 8192);
+        simulation.setEventLog(eventLog);
+        simulation.setProfiler(profiler);
+        this.metricsPath = metricsPath;
+    }
 
-    public void run() {
+    public void run() throws IOException {
         System.out.println("LWJGL Version: " + Version.getVersion());
+        System.out.println("Seed: " + simulation.getSeed());
 
         init();
+        if (recordPath != null) {
+            recorder = ReplayRecorder.create(recordPath, GRID_SIZE, timestep.getTickRate(), simulation.getSeed());
+            simulation.setRecorder(recorder);
+        }
+        if (metricsPath != null) {
+            metricsWriter = new MetricsWriter(metricsPath);
+            profiler.setWriter(metricsWriter);
+        }
         loop();
 
+        if (recorder != null) {
+            recorder.finish(simulation.getTick(), simulation.checksum());
+            recorder.close();
+            System.out.println("Recorded replay to " + recordPath);
+        }
+        eventLog.close();
+        String latency = inputLatency.summary();
+        if (!latency.isEmpty()) {
+            System.out.print("Input latency:\n" + latency);
+        }
+        if (inputQueue.getDroppedCount() > 0) {
+            System.out.println("Dropped " + inputQueue.getDroppedCount() + " input events because the queue was full");
+        }
+        if (metricsWriter != null) {
+            metricsWriter.close();
+            System.out.println("Wrote metrics to " + metricsPath);
+        }
+
+        islandMesh.dispose();
+        spriteRenderer.dispose();
+
         // Free the window callbacks and destroy the window
         glfwFreeCallbacks(window);
         glfwDestroyWindow(window);
@@ -83,6 +180,10 @@ public class Game {
         glfwDefaultWindowHints();
         glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
         glfwWindowHint(GLFW_RESIZABLE, GLFW_TRUE);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
+        glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
+        glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE);
 
         // Create the window
         window = glfwCreateWindow(WIDTH, HEIGHT, TITLE, NULL, NULL);
@@ -90,30 +191,21 @@ public class Game {
             throw new RuntimeException("Failed to create the GLFW window");
         }
 
-        // Setup key callback
-        glfwSetKeyCallback(window, (window, key, scancode, action, mods) -> {
-            if (key == GLFW_KEY_ESCAPE && action == GLFW_RELEASE) {
-                glfwSetWindowShouldClose(window, true);
-            }
-        });
-
-        // Setup mouse click callback
-        glfwSetMouseButtonCallback(window, (window, button, action, mods) -> {
-            if (button == GLFW_MOUSE_BUTTON_LEFT && action == GLFW_PRESS) {
-                double[] xpos = new double[1];
-                double[] ypos = new double[1];
-                glfwGetCursorPos(window, xpos, ypos);
-
-                // Convert screen coordinates to world coordinates (-1 to 1)
-                float worldX = (float)(xpos[0] / WIDTH) * 2 - 1;
-                float worldY = (float)(1 - ypos[0] / HEIGHT) * 2 - 1;
-
-                // Place a tower at click position
-                placeTower(worldX, worldY);
-            }
+        // Input callbacks queue the event and return; applyInput acts on it
+        glfwSetKeyCallback(window, (window, key, scancode, action, mods) ->
+                inputQueue.push(InputEvent.KEY, key, action, 0, 0, 0));
+        glfwSetCursorPosCallback(window, (window, xpos, ypos) -> {
+            cursorX = xpos;
+            cursorY = ypos;
         });
+        glfwSetMouseButtonCallback(window, (window, button, action, mods) ->
+                inputQueue.push(InputEvent.MOUSE_BUTTON, button, action, (float) cursorX, (float) cursorY, 0));
+        glfwSetScrollCallback(window, (window, xoffset, yoffset) ->
+                inputQueue.push(InputEvent.SCROLL, 0, 0, (float) cursorX, (float) cursorY, (float) yoffset));
 
-        inputHandler = new InputHandler(window);
+        // Cursor positions are in window units, which can differ from framebuffer pixels
+        glfwSetWindowSizeCallback(window, (window, width, height) -> camera.setViewport(width, height));
+        glfwSetFramebufferSizeCallback(window, (window, width, height) -> glViewport(0, 0, width, height));
 
         // Get the thread stack and push a new frame
         try (MemoryStack stack = stackPush()) {
@@ -137,224 +229,170 @@ public class Game {
         // Make the OpenGL context current
         glfwMakeContextCurrent(window);
 
-        // Enable v-sync
-        glfwSwapInterval(1);
+        // V-sync only paces rendering; the simulation tick rate does not depend on it
+        glfwSwapInterval(vsync ? 1 : 0);
 
         // Make the window visible
         glfwShowWindow(window);
 
-        // Initialize game world
-        islandGenerator = new IslandGenerator(GRID_SIZE, GRID_SIZE);
-        islandGenerator.generateIsland();
-
-        // Add initial towers
-        Tower initialTower = new Tower(0, 0, this);
-        entities.add(initialTower);
+        // Initialize game world; the island and large waves run across the shared worker pool
+        simulation.setPool(ForkJoinPool.commonPool());
+        simulation.init();
     }
 
     private void loop() {
         // This line is critical for LWJGL's interoperation with GLFW's
         // OpenGL context, or any context that is managed externally.
         GL.createCapabilities();
+        spriteRenderer = new GLSpriteRenderer();
+        islandMesh = new ChunkedIslandMesh();
 
         // Set the clear color
         glClearColor(0.0f, 0.2f, 0.4f, 0.0f); // Dark blue for water
 
         running = true;
-        lastFrameTime = (float)glfwGetTime();
+        lastFrameTime = glfwGetTime();
 
         // Run the rendering loop until the user has attempted to close
         // the window or has pressed the ESCAPE key
         while (running && !glfwWindowShouldClose(window)) {
-            // Calculate delta time
-            float currentTime = (float)glfwGetTime();
-            deltaTime = currentTime - lastFrameTime;
+            // Calculate frame time
+            double currentTime = glfwGetTime();
+            double frameTime = currentTime - lastFrameTime;
             lastFrameTime = currentTime;
+            long frameStart = profiler.begin();
+
+            // Apply input queued since the last frame, then pan the camera in real time,
+            // independent of the tick rate
+            appliedTime = System.nanoTime();
+            inputQueue.drain(inputListener);
+            panCamera((float) frameTime);
+            profiler.end(Phase.INPUT, frameStart);
+
+            // Run as many fixed ticks as the elapsed time covers
+            int ticks = timestep.advance(frameTime);
+            for (int i = 0; i < ticks; i++) {
+                simulation.update(timestep.getStepSeconds());
+            }
 
-            // Update game state
-            update(deltaTime);
-
-            // Render game
-            render();
+            // Render game, blended between the last two ticks
+            render(timestep.getAlpha());
 
             // Swap the color buffers
+            long swapStart = profiler.begin();
             glfwSwapBuffers(window);
+            recordShownInput(profiler.end(Phase.SWAP, swapStart));
 
             // Poll for window events
             glfwPollEvents();
-        }
-    }
-
-    private void update(float deltaTime) {
-        // Update input state
-        inputHandler.update();
-
-        // Update spawn timer
-        spawnTimer += deltaTime;
-        if (spawnTimer >= SPAWN_INTERVAL) {
-            spawnEnemy();
-            spawnTimer = 0;
-        }
 
-        // Mark that we're updating
-        isUpdating = true;
-        entitiesToAdd.clear();
-
-        // Update all entities
-        Iterator<Entity> iterator = entities.iterator();
-        while (iterator.hasNext()) {
-            Entity entity = iterator.next();
-            entity.update(deltaTime);
-
-            // Remove inactive entities
-            if (!entity.isActive()) {
-                iterator.remove();
+            profiler.end(Phase.FRAME, frameStart);
+            profiler.sampleEntities(simulation.getEntityStore());
+            if (profiler.endFrame()) {
+                updateTitle();
             }
         }
-
-        // No longer updating, add any new entities
-        isUpdating = false;
-        entities.addAll(entitiesToAdd);
-        entitiesToAdd.clear();
-
-        // Check for collisions
-        checkCollisions();
     }
 
-    private void render() {
-        // Clear the framebuffer
-        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-
-        // Render island
-        renderIsland();
-
-        // Render all entities
-        for (Entity entity : entities) {
-            entity.render();
-        }
-    }
-
-    private void renderIsland() {
-        // Scale to fit the grid in the OpenGL coordinate system (-1 to 1)
-        float scale = 1.8f / GRID_SIZE;
-
-        // Render the island map
-        glBegin(GL_QUADS);
-        for (int x = 0; x < GRID_SIZE; x++) {
-            for (int y = 0; y < GRID_SIZE; y++) {
-                float worldX = (x - GRID_SIZE/2) * scale;
-                float worldY = (y - GRID_SIZE/2) * scale;
-
-                if (islandGenerator.isLand(x, y)) {
-                    // Land color (green)
-                    glColor3f(0.2f, 0.6f, 0.2f);
-                    glVertex2f(worldX, worldY);
-                    glVertex2f(worldX + scale, worldY);
-                    glVertex2f(worldX + scale, worldY + scale);
-                    glVertex2f(worldX, worldY + scale);
+    // Runs on the main thread at a tick boundary, in the order the input arrived
+    private void applyInput(InputEvent event, int code, int action, float x, float y, float value, long timeNanos) {
+        switch (event) {
+            case KEY -> {
+                inputHandler.onKey(code, action);
+                if (code == GLFW_KEY_ESCAPE && action == GLFW_RELEASE) {
+                    glfwSetWindowShouldClose(window, true);
+                }
+                if (code == GLFW_KEY_F3 && action == GLFW_PRESS) {
+                    showMetrics = !showMetrics;
                 }
             }
+            case MOUSE_BUTTON -> {
+                if (code == GLFW_MOUSE_BUTTON_LEFT && action == GLFW_PRESS) {
+                    // Place a tower at the click, converted to world coordinates through the camera
+                    simulation.placeTower(camera.screenToWorldX(x), camera.screenToWorldY(y));
+                }
+            }
+            case SCROLL -> camera.zoom((float) Math.pow(ZOOM_STEP, -value), x, y);
         }
-        glEnd();
-    }
 
-    private void placeTower(float x, float y) {
-        // Check if position is on land (approximate conversion)
-        int gridX = (int)((x + 1) / 1.8f * GRID_SIZE + GRID_SIZE/2);
-        int gridY = (int)((y + 1) / 1.8f * GRID_SIZE + GRID_SIZE/2);
-
-        if (gridX >= 0 && gridX < GRID_SIZE && gridY >= 0 && gridY < GRID_SIZE) {
-            if (islandGenerator.isLand(gridX, gridY)) {
-                Tower tower = new Tower(x, y, this);
-                entities.add(tower);
-                System.out.println("Tower placed at: " + x + ", " + y);
-            } else {
-                System.out.println("Cannot place tower on water!");
-            }
+        if (shownCount == shownEvent.length) {
+            shownEvent = Arrays.copyOf(shownEvent, shownCount * 2);
+            shownInputTime = Arrays.copyOf(shownInputTime, shownCount * 2);
         }
+        shownEvent[shownCount] = event;
+        shownInputTime[shownCount] = timeNanos;
+        shownCount++;
     }
 
-    private void spawnEnemy() {
-        // Spawn at random position at the edge of the screen
-        float x, y;
-        if (random.nextBoolean()) {
-            // Spawn on left or right edge
-            x = random.nextBoolean() ? -0.9f : 0.9f;
-            y = random.nextFloat() * 1.8f - 0.9f;
-        } else {
-            // Spawn on top or bottom edge
-            x = random.nextFloat() * 1.8f - 0.9f;
-            y = random.nextBoolean() ? -0.9f : 0.9f;
+    // The frame just swapped is the first to show this frame's input
+    private void recordShownInput(long shownTime) {
+        for (int i = 0; i < shownCount; i++) {
+            inputLatency.record(shownEvent[i], shownInputTime[i], appliedTime, shownTime);
         }
-
-        EnemyShip ship = new EnemyShip(x, y);
-
-        // Target the center of the island
-        ship.setTargetPosition(0, 0);
-
-        entities.add(ship);
-        System.out.println("Enemy ship spawned at: " + x + ", " + y);
+        shownCount = 0;
     }
 
-    public List<Entity> getEntities() {
-        return entities;
+    private void panCamera(float seconds) {
+        float dx = (inputHandler.isMoveRight() ? 1 : 0) - (inputHandler.isMoveLeft() ? 1 : 0);
+        float dy = (inputHandler.isMoveUp() ? 1 : 0) - (inputHandler.isMoveDown() ? 1 : 0);
+        if (dx != 0 || dy != 0) {
+            float distance = PAN_SPEED * 2 * camera.getHalfHeight() * seconds;
+            camera.pan(dx * distance, dy * distance);
+        }
     }
 
-    public void addEntity(Entity entity) {
-        if (isUpdating) {
-            entitiesToAdd.add(entity);
-        } else {
-            entities.add(entity);
+    private void render(float alpha) {
+        // Clear the framebuffer
+        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        spriteRenderer.setView(camera);
+
+        // Render island
+        long time = profiler.begin();
+        renderIsland();
+        time = profiler.end(Phase.RENDER_ISLAND, time);
+
+        // Gather all entities, then submit them together
+        spriteBatch.clear();
+        entityRenderer.build(simulation.getEntityStore(), simulation.getSpatialIndex(), spriteBatch, alpha, camera);
+        spriteRenderer.draw(spriteBatch);
+        profiler.end(Phase.RENDER_ENTITIES, time);
+
+        // The overlay stays fixed to the screen
+        if (showMetrics) {
+            spriteBatch.clear();
+            metricsOverlay.build(profiler, spriteBatch);
+            spriteRenderer.setScreenView();
+            spriteRenderer.draw(spriteBatch);
         }
     }
 
-    private void checkCollisions() {
-        for (Entity entity1 : entities) {
-            // Skip if the entity is not active
-            if (!entity1.isActive()) continue;
-
-            // If entity1 is a projectile
-            if (entity1 instanceof Projectile) {
-                Projectile projectile = (Projectile) entity1;
-
-                for (Entity entity2 : entities) {
-                    // Skip if the same entity or entity2 is not active
-                    if (entity1 == entity2 || !entity2.isActive()) continue;
-
-                    // Check if projectile hit appropriate target
-                    if (projectile.isFriendly() && entity2 instanceof EnemyShip) {
-                        if (checkCollision(projectile, entity2)) {
-                            // Apply damage to enemy
-                            ((EnemyShip) entity2).takeDamage(projectile.getDamage());
-                            // Deactivate projectile
-                            projectile.setActive(false);
-                        }
-                    }
-                    // Could add enemy projectiles hitting player units here
-                }
-            }
-        }
+    private void updateTitle() {
+        glfwSetWindowTitle(window, String.format("%s - frame p50 %.2f ms, p99 %.2f ms - %d ships, %d towers, %d projectiles",
+                TITLE,
+                profiler.getP50(Phase.FRAME) / 1e6,
+                profiler.getP99(Phase.FRAME) / 1e6,
+                profiler.getEntityCount(EntityKind.SHIP),
+                profiler.getEntityCount(EntityKind.TOWER),
+                profiler.getEntityCount(EntityKind.PROJECTILE)));
     }
 
-    private boolean checkCollision(Entity a, Entity b) {
-        float ax = a.getX();
-        float ay = a.getY();
-        float aw = a.getWidth();
-        float ah = a.getHeight();
-
-        float bx = b.getX();
-        float by = b.getY();
-        float bw = b.getWidth();
-        float bh = b.getHeight();
-
-        // Simple axis-aligned bounding box collision
-        return (ax - aw/2 < bx + bw/2 &&
-                ax + aw/2 > bx - bw/2 &&
-                ay - ah/2 < by + bh/2 &&
-                ay + ah/2 > by - bh/2);
+    private void renderIsland() {
+        // Re-mesh only when the map has changed since the last upload
+        islandMesh.update(simulation.getIslandGenerator(), spriteBatch);
+        islandMesh.draw(spriteRenderer, camera);
     }
 
-    public static void main(String[] args) {
-        new Game().run();
+    // Options: --tick-rate=<ticks per second> --vsync=<true|false> --seed=<n> --record=<file>
+    //          --log-level=<debug|info|warn|off> --metrics=<file.csv|file.jsonl>
+    public static void main(String[] args) throws IOException {
+        Options options = Options.parse(args, "--tick-rate", "--vsync", "--seed", "--record", "--log-level", "--metrics");
+        int tickRate = options.getInt("--tick-rate", DEFAULT_TICK_RATE);
+        boolean vsync = options.getBoolean("--vsync", true);
+        long seed = options.getLong("--seed", new Random().nextLong());
+        Path recordPath = options.getPath("--record");
+        LogLevel logLevel = LogLevel.valueOf(options.getString("--log-level", LogLevel.INFO.name()).toUpperCase());
+        Path metricsPath = options.getPath("--metrics");
+
+        new Game(tickRate, vsync, seed, recordPath, logLevel, metricsPath).run();
     }
 }
\ No newline at end of file
@@ -0,0 +1,201 @@
+package org.chrisgruber.balance;
+
+import org.chrisgruber.entity.EnemyShip;
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.simulation.GameStats;
+import org.chrisgruber.simulation.Simulation;
+import org.chrisgruber.util.Options;
+import org.chrisgruber.wave.Scenario;
+import org.chrisgruber.wave.WaveScheduler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Plays a scenario headlessly over a grid of tower and ship stats, many seeded games per grid
+// point, spread over all cores and each as fast as one core allows. Every grid point plays the
+// same seeds, so differences between points come from the stats rather than the draw.
+// A game ends when the first ship reaches the island center, or after the scenario's ticks.
+// Usage: BalanceSweep [--scenario=NAME] [--games=N] [--ticks=N] [--threads=N] [--seed=N]
+//                     [--range=A,B,..] [--damage=..] [--cooldown=..] [--ship-health=..]
+//                     [--ship-speed=..] [--out=FILE.csv]
+// Each stat option takes a comma-separated list of values; left out, it keeps its default.
+public class BalanceSweep {
+    private String scenarioName = "skirmish";
+    private int games = 100;
+    private int ticks = 0;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 1;
+    private float[] ranges = {GameStats.DEFAULT.getTowerRange()};
+    private float[] damages = {GameStats.DEFAULT.getTowerDamage()};
+    private float[] cooldowns = {GameStats.DEFAULT.getTowerCooldown()};
+    private float[] shipHealths = {GameStats.DEFAULT.getShipHealth()};
+    private float[] shipSpeeds = {GameStats.DEFAULT.getShipSpeed()};
+    private Path outPath;
+
+    public static void main(String[] args) throws Exception {
+        BalanceSweep sweep = new BalanceSweep();
+        sweep.parseArgs(args);
+        sweep.run();
+    }
+
+    private void parseArgs(String[] args) {
+        Options options = Options.parse(args, "--scenario", "--games", "--ticks", "--threads", "--seed",
+                "--range", "--damage", "--cooldown", "--ship-health", "--ship-speed", "--out");
+        scenarioName = options.getString("--scenario", scenarioName);
+        games = options.getInt("--games", games);
+        ticks = options.getInt("--ticks", ticks);
+        threads = options.getInt("--threads", threads);
+        seed = options.getLong("--seed", seed);
+        ranges = options.getFloats("--range", ranges);
+        damages = options.getFloats("--damage", damages);
+        cooldowns = options.getFloats("--cooldown", cooldowns);
+        shipHealths = options.getFloats("--ship-health", shipHealths);
+        shipSpeeds = options.getFloats("--ship-speed", shipSpeeds);
+        outPath = options.getPath("--out");
+    }
+
+    public void run() throws Exception {
+        Scenario scenario = Scenario.load(scenarioName);
+        int gameTicks = ticks > 0 ? ticks : scenario.getTicks();
+        List<GameStats> points = grid();
+        int total = points.size() * games;
+        System.out.printf("Sweeping %d stat combinations x %d games = %d games of %s (%d ticks) on %d threads%n",
+                points.size(), games, total, scenario.getName(), gameTicks, threads);
+
+        GameResult[] results = new GameResult[total];
+        AtomicInteger done = new AtomicInteger();
+        int reportEvery = Math.max(1, total / 10);
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(total);
+            for (int p = 0; p < points.size(); p++) {
+                GameStats stats = points.get(p);
+                for (int g = 0; g < games; g++) {
+                    int index = p * games + g;
+                    long gameSeed = seed + g;
+                    futures.add(executor.submit(() -> {
+                        results[index] = play(scenario, stats, gameSeed, gameTicks);
+                        int finished = done.incrementAndGet();
+                        if (finished % reportEvery == 0) {
+                            System.out.printf("  %d/%d games, %.1f s%n", finished, total, (System.nanoTime() - start) / 1e9);
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Played %d games in %.1f s: %.1f games/s%n", total, elapsed, total / elapsed);
+
+        report(points, results);
+    }
+
+    // Every combination of the stat values, range varying slowest
+    private List<GameStats> grid() {
+        List<GameStats> points = new ArrayList<>();
+        for (float range : ranges) {
+            for (float damage : damages) {
+                for (float cooldown : cooldowns) {
+                    for (float shipHealth : shipHealths) {
+                        for (float shipSpeed : shipSpeeds) {
+                            points.add(new GameStats(range, damage, cooldown, shipHealth, shipSpeed));
+                        }
+                    }
+                }
+            }
+        }
+        return points;
+    }
+
+    // One game on the calling thread, as fast as it will go
+    public static GameResult play(Scenario scenario, GameStats stats, long seed, int ticks) {
+        Simulation simulation = new Simulation(scenario.getGridSize(), seed);
+        simulation.setStats(stats);
+        simulation.init();
+        simulation.placeTowersOnLand(scenario.getTowers(), seed);
+        WaveScheduler waves = new WaveScheduler(scenario.getWaves(), scenario.getMaxSpawnsPerTick());
+        simulation.setWaves(waves);
+
+        float deltaTime = 1.0f / scenario.getTickRate();
+        EntityStore.Bucket ships = simulation.getEntityStore().getBucket(EntityKind.SHIP);
+        boolean breached = false;
+        int tick = 0;
+        while (tick < ticks && !breached) {
+            simulation.update(deltaTime);
+            tick++;
+            for (int slot = 0; slot < ships.size(); slot++) {
+                if (((EnemyShip) ships.get(slot)).hasArrived()) {
+                    breached = true;
+                    break;
+                }
+            }
+        }
+
+        return new GameResult(tick * deltaTime, breached, waves.getSpawned(),
+                simulation.getKills(), simulation.getShotsFired(), simulation.getHits());
+    }
+
+    private void report(List<GameStats> points, GameResult[] results) throws IOException {
+        BufferedWriter out = outPath != null ? Files.newBufferedWriter(outPath) : null;
+        if (out != null) {
+            out.write("range,damage,cooldown,ship_health,ship_speed,games,breached,survival_mean_s,survival_min_s,"
+                    + "ships_mean,kills_mean,shots_mean,hits_mean,hit_rate\n");
+        }
+
+        System.out.printf("%6s %7s %8s %7s %7s | %8s %9s %8s %8s %8s %8s %6s%n",
+                "range", "damage", "cooldown", "health", "speed",
+                "breached", "survive s", "min s", "ships", "kills", "shots", "hit %");
+        for (int p = 0; p < points.size(); p++) {
+            GameStats stats = points.get(p);
+            int breached = 0;
+            double survival = 0;
+            double minSurvival = Double.MAX_VALUE;
+            long ships = 0, kills = 0, shots = 0, hits = 0;
+            for (int g = 0; g < games; g++) {
+                GameResult result = results[p * games + g];
+                breached += result.isBreached() ? 1 : 0;
+                survival += result.getSurvivalSeconds();
+                minSurvival = Math.min(minSurvival, result.getSurvivalSeconds());
+                ships += result.getShipsSpawned();
+                kills += result.getKills();
+                shots += result.getShotsFired();
+                hits += result.getHits();
+            }
+            double hitRate = shots > 0 ? (double) hits / shots : 0;
+
+            System.out.printf("%6.2f %7.1f %8.2f %7.1f %7.3f | %7.0f%% %9.1f %8.1f %8.1f %8.1f %8.1f %5.1f%%%n",
+                    stats.getTowerRange(), stats.getTowerDamage(), stats.getTowerCooldown(),
+                    stats.getShipHealth(), stats.getShipSpeed(),
+                    100.0 * breached / games, survival / games, minSurvival,
+                    (double) ships / games, (double) kills / games, (double) shots / games, 100 * hitRate);
+            if (out != null) {
+                out.write(String.format(Locale.ROOT, "%s,%s,%s,%s,%s,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.4f%n",
+                        stats.getTowerRange(), stats.getTowerDamage(), stats.getTowerCooldown(),
+                        stats.getShipHealth(), stats.getShipSpeed(), games, breached,
+                        survival / games, minSurvival, (double) ships / games, (double) kills / games,
+                        (double) shots / games, (double) hits / games, hitRate));
+            }
+        }
+
+        if (out != null) {
+            out.close();
+            System.out.println("Wrote summary to " + outPath);
+        }
+    }
+}
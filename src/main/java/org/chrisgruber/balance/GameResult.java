@@ -0,0 +1,45 @@
+package org.chrisgruber.balance;
+
+// Outcome of one headless balance game
+public class GameResult {
+    private final float survivalSeconds;
+    private final boolean breached;
+    private final long shipsSpawned;
+    private final long kills;
+    private final long shotsFired;
+    private final long hits;
+
+    public GameResult(float survivalSeconds, boolean breached, long shipsSpawned, long kills, long shotsFired, long hits) {
+        this.survivalSeconds = survivalSeconds;
+        this.breached = breached;
+        this.shipsSpawned = shipsSpawned;
+        this.kills = kills;
+        this.shotsFired = shotsFired;
+        this.hits = hits;
+    }
+
+    // Simulated time until the first ship reached the island center, or the whole game if none did
+    public float getSurvivalSeconds() {
+        return survivalSeconds;
+    }
+
+    public boolean isBreached() {
+        return breached;
+    }
+
+    public long getShipsSpawned() {
+        return shipsSpawned;
+    }
+
+    public long getKills() {
+        return kills;
+    }
+
+    public long getShotsFired() {
+        return shotsFired;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+}
@@ -1,79 +1,149 @@
 package org.chrisgruber.entity;
 
-import static org.lwjgl.opengl.GL11.*;
+import org.chrisgruber.simulation.CommandBuffer;
+import org.chrisgruber.world.FlowField;
+
+import java.nio.ByteBuffer;
 
 public class EnemyShip extends Entity {
-    private float health;
-    private final float speed;
-    private final float[] targetPosition;
+    public static final float SIZE = 0.15f;
+
+    private float speed;
+    private float targetX;
+    private float targetY;
+
+    // Shared paths to the target; null sails straight at it
+    private FlowField navigation;
+
+    // Read from a snapshot: whether setNavigation() should be called again once loaded
+    private boolean navigating;
+
+    // Whether the ship reached its target on its last update
+    private boolean arrived;
 
-    public EnemyShip(float x, float y) {
-        super(x, y, 0.15f, 0.15f);
-        this.health = 20f;
+    // Ships are pooled, so state is set up in reset() each time one is added to the store
+    public EnemyShip() {
+        super(EntityKind.SHIP);
+    }
+
+    // Call after the ship has been added to the store
+    public void reset() {
         this.speed = 0.05f;
-        this.targetPosition = new float[]{0, 0}; // Default target
+        this.targetX = 0; // Default target
+        this.targetY = 0;
+        this.navigation = null;
+        this.arrived = false;
+        bucket.health[slot] = 20f;
     }
 
     @Override
-    public void update(float deltaTime) {
-        // Simple movement toward target
-        float dx = targetPosition[0] - x;
-        float dy = targetPosition[1] - y;
+    public void update(float deltaTime, CommandBuffer commands) {
+        float x = bucket.x[slot];
+        float y = bucket.y[slot];
+
+        // Head for the next cell on the shared path, or straight for the target once there.
+        // Cells are smaller than the arrival distance, so only the target itself stops a ship.
+        float goalX = targetX;
+        float goalY = targetY;
+        float arrival = 0.01f;
+        if (navigation != null) {
+            int next = navigation.nextCell(navigation.cellAt(x, y));
+            if (next >= 0) {
+                goalX = navigation.cellCenterX(next);
+                goalY = navigation.cellCenterY(next);
+                arrival = 0;
+            }
+        }
+
+        float dx = goalX - x;
+        float dy = goalY - y;
         float distance = (float) Math.sqrt(dx*dx + dy*dy);
 
-        if (distance > 0.01f) {
-            float moveX = dx / distance * speed * deltaTime;
-            float moveY = dy / distance * speed * deltaTime;
-            x += moveX;
-            y += moveY;
+        arrived = arrival > 0 && distance <= arrival;
+        if (distance > arrival) {
+            float vx = dx / distance * speed;
+            float vy = dy / distance * speed;
+            bucket.vx[slot] = vx;
+            bucket.vy[slot] = vy;
+            bucket.x[slot] = x + vx * deltaTime;
+            bucket.y[slot] = y + vy * deltaTime;
+        } else {
+            bucket.vx[slot] = 0;
+            bucket.vy[slot] = 0;
         }
 
         // Check if health is zero
-        if (health <= 0) {
-            active = false;
+        if (bucket.health[slot] <= 0) {
+            setActive(false);
         }
     }
 
     @Override
-    public void render() {
-        // Scales size of the ship
-        float scaleFactor = 0.7f; // Reduce size by 30%
-        float scaledWidth = width * scaleFactor;
-        float scaledHeight = height * scaleFactor;
-
-        // Draw the ship as a triangle
-        glBegin(GL_TRIANGLES);
-        glColor3f(0.9f, 0.1f, 0.1f); // Red color
-
-        // Ship pointing in the direction of movement
-        float angle = (float) Math.atan2(targetPosition[1] - y, targetPosition[0] - x);
-        float x1 = x + (float) Math.cos(angle) * scaledWidth;
-        float y1 = y + (float) Math.sin(angle) * scaledHeight;
-        float x2 = x + (float) Math.cos(angle + 2.5f) * scaledWidth;
-        float y2 = y + (float) Math.sin(angle + 2.5f) * scaledHeight;
-        float x3 = x + (float) Math.cos(angle - 2.5f) * scaledWidth;
-        float y3 = y + (float) Math.sin(angle - 2.5f) * scaledHeight;
-
-        glVertex2f(x1, y1);
-        glVertex2f(x2, y2);
-        glVertex2f(x3, y3);
-        glEnd();
+    public int getStateBytes() {
+        return 3 * Float.BYTES + 1;
+    }
+
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        buffer.putFloat(speed);
+        buffer.putFloat(targetX);
+        buffer.putFloat(targetY);
+        // The field itself is rebuilt from the map on load; only whether the ship follows one is kept
+        buffer.put((byte) (navigation != null ? 1 : 0));
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        speed = buffer.getFloat();
+        targetX = buffer.getFloat();
+        targetY = buffer.getFloat();
+        navigating = buffer.get() != 0;
+    }
+
+    // Overrides the defaults from reset(), for the game's balance stats and scripted waves
+    public void setStats(float speed, float health) {
+        this.speed = speed;
+        bucket.health[slot] = health;
     }
 
     public void setTargetPosition(float x, float y) {
-        this.targetPosition[0] = x;
-        this.targetPosition[1] = y;
+        this.targetX = x;
+        this.targetY = y;
     }
 
-    public void takeDamage(float damage) {
-        this.health -= damage;
+    // The field must lead to the target position; it is only read during update
+    public void setNavigation(FlowField navigation) {
+        this.navigation = navigation;
+    }
+
+    // After a snapshot load, whether the ship was following a field when it was saved
+    public boolean wasNavigating() {
+        return navigating;
+    }
+
+    public boolean hasArrived() {
+        return arrived;
+    }
 
-        System.out.println("Enemy ship took " + damage + " damage! Health remaining: " + this.health);
+    public float getTargetX() {
+        return targetX;
+    }
+
+    public float getTargetY() {
+        return targetY;
+    }
+
+    public void takeDamage(float damage) {
+        float health = bucket.health[slot] - damage;
 
-        if (this.health <= 0) {
-            this.health = 0;
-            this.active = false;
-            System.out.println("Enemy ship destroyed!");
+        if (health <= 0) {
+            health = 0;
+            setActive(false);
         }
+        bucket.health[slot] = health;
+    }
+
+    public float getHealth() {
+        return bucket.health[slot];
     }
 }
@@ -1,49 +1,89 @@
 package org.chrisgruber.entity;
 
-import java.util.UUID;
+import org.chrisgruber.simulation.CommandBuffer;
 
+import java.nio.ByteBuffer;
+
+// Handle to an entity whose state lives in the columns of an EntityStore bucket.
+// Handles are pooled: once an inactive entity is compacted out of its bucket the object
+// goes back to the store and may be handed out again with a new generation in its id.
 public abstract class Entity {
-    private final UUID id;
-    protected float x, y;
-    protected float width, height;
-    protected boolean active = true;
+    private final EntityKind kind;
+
+    // Stable per object, assigned the first time it is added to a store
+    int index = -1;
+    int generation = 0;
+    EntityStore.Bucket bucket;
+    int slot = -1;
 
-    protected Entity(float x, float y, float width, float height) {
-        this.id = UUID.randomUUID();
-        this.x = x;
-        this.y = y;
-        this.width = width;
-        this.height = height;
+    protected Entity(EntityKind kind) {
+        this.kind = kind;
     }
 
-    public abstract void update(float deltaTime);
-    public abstract void render();
+    // May run on a worker thread alongside other entities of the same kind. Only this entity's
+    // own columns may be written; anything that touches other entities or adds new ones goes
+    // into commands and is applied by the simulation after the phase.
+    public abstract void update(float deltaTime, CommandBuffer commands);
+
+    // State kept on the handle rather than in the bucket columns, for world snapshots.
+    // Every entity of a kind writes the same number of bytes.
+    public abstract int getStateBytes();
+
+    public abstract void writeState(ByteBuffer buffer);
+
+    // Call after the entity has been added to the store
+    public abstract void readState(ByteBuffer buffer);
+
+    // Generational handle: resolves through EntityStore.resolve only while this use is alive
+    public int getId() {
+        return (generation << EntityStore.INDEX_BITS) | index;
+    }
 
-    public UUID getId() {
-        return id;
+    public EntityKind getKind() {
+        return kind;
+    }
+
+    // Slot in the bucket, or -1 once the entity has been removed
+    public int getSlot() {
+        return slot;
     }
 
     public float getX() {
-        return x;
+        return bucket.x[slot];
     }
 
     public float getY() {
-        return y;
+        return bucket.y[slot];
     }
 
     public float getWidth() {
-        return width;
+        return bucket.width[slot];
     }
 
     public float getHeight() {
-        return height;
+        return bucket.height[slot];
+    }
+
+    public float getVx() {
+        return bucket.vx[slot];
+    }
+
+    public float getVy() {
+        return bucket.vy[slot];
     }
 
     public boolean isActive() {
-        return active;
+        return slot >= 0 && (bucket.flags[slot] & EntityStore.FLAG_ACTIVE) != 0;
     }
 
     public void setActive(boolean active) {
-        this.active = active;
+        if (slot < 0) {
+            return;
+        }
+        if (active) {
+            bucket.flags[slot] |= EntityStore.FLAG_ACTIVE;
+        } else {
+            bucket.flags[slot] &= ~EntityStore.FLAG_ACTIVE;
+        }
     }
 }
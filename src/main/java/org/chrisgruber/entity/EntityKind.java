@@ -0,0 +1,7 @@
+package org.chrisgruber.entity;
+
+public enum EntityKind {
+    SHIP,
+    TOWER,
+    PROJECTILE
+}
@@ -0,0 +1,318 @@
+package org.chrisgruber.entity;
+
+import java.util.Arrays;
+
+// Structure-of-arrays storage for entity state. Each EntityKind has its own bucket of primitive
+// columns indexed by slot, so hot loops walk contiguous floats instead of chasing objects.
+// Entity objects stay as thin handles that know their bucket and slot, and are recycled
+// through a per-kind pool so steady-state spawning does not allocate.
+public class EntityStore {
+    public static final int FLAG_ACTIVE = 1;
+    public static final int FLAG_FRIENDLY = 1 << 1;
+
+    // Entity ids pack a handle index in the low bits and a reuse generation in the high bits
+    public static final int INDEX_BITS = 22;
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    private static final int GENERATION_MASK = (1 << (32 - INDEX_BITS)) - 1;
+
+    private static final EntityKind[] KINDS = EntityKind.values();
+
+    private final Bucket[] buckets = new Bucket[KINDS.length];
+
+    // Every handle ever added, by index, for resolving ids
+    private Entity[] handles = new Entity[256];
+    private int handleCount = 0;
+
+    public EntityStore() {
+        for (EntityKind kind : KINDS) {
+            buckets[kind.ordinal()] = new Bucket(kind);
+        }
+    }
+
+    // Adds the entity to its kind's bucket with fresh columns. The entity must not be in a
+    // store already; pooled handles get a new generation so stale ids stop resolving.
+    public void add(Entity entity, float x, float y, float width, float height) {
+        if (entity.slot >= 0) {
+            throw new IllegalStateException("Entity is already in a store");
+        }
+
+        if (entity.index < 0) {
+            if (handleCount > INDEX_MASK) {
+                throw new IllegalStateException("Too many entity handles");
+            }
+            if (handleCount == handles.length) {
+                handles = Arrays.copyOf(handles, handleCount * 2);
+            }
+            entity.index = handleCount;
+            handles[handleCount++] = entity;
+        } else {
+            entity.generation = (entity.generation + 1) & GENERATION_MASK;
+        }
+
+        buckets[entity.getKind().ordinal()].add(entity, x, y, width, height);
+    }
+
+    // Grows the kind's bucket and the handle table up front when a known number of entities is
+    // about to be added, so the columns are not copied on every doubling
+    public void ensureCapacity(EntityKind kind, int capacity) {
+        Bucket bucket = buckets[kind.ordinal()];
+        if (bucket.entities.length < capacity) {
+            bucket.allocate(capacity);
+        }
+        int handlesNeeded = handleCount + capacity - bucket.size;
+        if (handles.length < handlesNeeded) {
+            handles = Arrays.copyOf(handles, handlesNeeded);
+        }
+    }
+
+    // Returns a released handle of the given kind for reuse, or null if the pool is empty
+    public Entity acquire(EntityKind kind) {
+        return buckets[kind.ordinal()].acquire();
+    }
+
+    // Returns the live entity with this id, or null if it was removed or its handle reused
+    public Entity resolve(int id) {
+        int index = id & INDEX_MASK;
+        if (index >= handleCount) {
+            return null;
+        }
+        Entity entity = handles[index];
+        return entity.slot >= 0 && entity.getId() == id ? entity : null;
+    }
+
+    public Bucket getBucket(EntityKind kind) {
+        return buckets[kind.ordinal()];
+    }
+
+    public int size() {
+        int size = 0;
+        for (Bucket bucket : buckets) {
+            size += bucket.size;
+        }
+        return size;
+    }
+
+    public int size(EntityKind kind) {
+        return buckets[kind.ordinal()].size;
+    }
+
+    // Copies every position into the previous-position columns. Called at the start of a
+    // tick so a renderer can interpolate between the last two ticks.
+    public void savePreviousPositions() {
+        for (Bucket bucket : buckets) {
+            System.arraycopy(bucket.x, 0, bucket.prevX, 0, bucket.size);
+            System.arraycopy(bucket.y, 0, bucket.prevY, 0, bucket.size);
+        }
+    }
+
+    // Hash of every live column in slot order, for checking that two runs ended the same way.
+    // Ids are left out: they depend on which handles were reused, not on the game, and a
+    // snapshot load hands out fresh ones.
+    public long checksum() {
+        long hash = 17;
+        for (Bucket bucket : buckets) {
+            hash = hash * 31 + bucket.size;
+            for (int slot = 0; slot < bucket.size; slot++) {
+                hash = hash * 31 + Float.floatToIntBits(bucket.x[slot]);
+                hash = hash * 31 + Float.floatToIntBits(bucket.y[slot]);
+                hash = hash * 31 + Float.floatToIntBits(bucket.vx[slot]);
+                hash = hash * 31 + Float.floatToIntBits(bucket.vy[slot]);
+                hash = hash * 31 + Float.floatToIntBits(bucket.health[slot]);
+                hash = hash * 31 + bucket.flags[slot];
+            }
+        }
+        return hash;
+    }
+
+    // Removes every inactive entity by moving the last entity of its bucket into the hole.
+    // Returns the number of entities removed.
+    public int compact() {
+        int removed = 0;
+        for (Bucket bucket : buckets) {
+            removed += bucket.compact();
+        }
+        return removed;
+    }
+
+    public static final class Bucket {
+        private final EntityKind kind;
+        private int size = 0;
+
+        // Columns, all indexed by slot
+        Entity[] entities;
+        float[] x, y;
+        float[] prevX, prevY;
+        float[] width, height;
+        float[] vx, vy;
+        float[] health;
+        int[] flags;
+
+        // Released handles waiting to be reused
+        private Entity[] pool = new Entity[64];
+        private int pooled = 0;
+
+        private Bucket(EntityKind kind) {
+            this.kind = kind;
+            allocate(64);
+        }
+
+        public EntityKind getKind() {
+            return kind;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Entity get(int slot) {
+            return entities[slot];
+        }
+
+        // Column accessors for hot loops. The arrays are replaced when the bucket grows,
+        // so fetch them again after anything that can add entities.
+        public float[] getX() {
+            return x;
+        }
+
+        public float[] getY() {
+            return y;
+        }
+
+        // Positions at the start of the current tick
+        public float[] getPrevX() {
+            return prevX;
+        }
+
+        public float[] getPrevY() {
+            return prevY;
+        }
+
+        public float[] getWidth() {
+            return width;
+        }
+
+        public float[] getHeight() {
+            return height;
+        }
+
+        public float[] getVx() {
+            return vx;
+        }
+
+        public float[] getVy() {
+            return vy;
+        }
+
+        public float[] getHealth() {
+            return health;
+        }
+
+        public int[] getFlags() {
+            return flags;
+        }
+
+        private void add(Entity entity, float x, float y, float width, float height) {
+            if (size == entities.length) {
+                allocate(size * 2);
+            }
+
+            int slot = size++;
+            entities[slot] = entity;
+            this.x[slot] = x;
+            this.y[slot] = y;
+            this.prevX[slot] = x;
+            this.prevY[slot] = y;
+            this.width[slot] = width;
+            this.height[slot] = height;
+            this.vx[slot] = 0;
+            this.vy[slot] = 0;
+            this.health[slot] = 0;
+            this.flags[slot] = FLAG_ACTIVE;
+
+            entity.bucket = this;
+            entity.slot = slot;
+        }
+
+        private int compact() {
+            int removed = 0;
+            int slot = 0;
+            while (slot < size) {
+                if ((flags[slot] & FLAG_ACTIVE) != 0) {
+                    slot++;
+                    continue;
+                }
+
+                // Detach the dead entity, return it to the pool and swap the last one into its slot
+                release(entities[slot]);
+                int last = --size;
+                if (slot != last) {
+                    moveSlot(last, slot);
+                }
+                entities[last] = null;
+                removed++;
+            }
+            return removed;
+        }
+
+        private Entity acquire() {
+            if (pooled == 0) {
+                return null;
+            }
+            Entity entity = pool[--pooled];
+            pool[pooled] = null;
+            return entity;
+        }
+
+        private void release(Entity entity) {
+            entity.slot = -1;
+            if (pooled == pool.length) {
+                pool = Arrays.copyOf(pool, pooled * 2);
+            }
+            pool[pooled++] = entity;
+        }
+
+        private void moveSlot(int from, int to) {
+            entities[to] = entities[from];
+            x[to] = x[from];
+            y[to] = y[from];
+            prevX[to] = prevX[from];
+            prevY[to] = prevY[from];
+            width[to] = width[from];
+            height[to] = height[from];
+            vx[to] = vx[from];
+            vy[to] = vy[from];
+            health[to] = health[from];
+            flags[to] = flags[from];
+            entities[to].slot = to;
+        }
+
+        private void allocate(int capacity) {
+            if (entities == null) {
+                entities = new Entity[capacity];
+                x = new float[capacity];
+                y = new float[capacity];
+                prevX = new float[capacity];
+                prevY = new float[capacity];
+                width = new float[capacity];
+                height = new float[capacity];
+                vx = new float[capacity];
+                vy = new float[capacity];
+                health = new float[capacity];
+                flags = new int[capacity];
+                return;
+            }
+
+            entities = Arrays.copyOf(entities, capacity);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            prevX = Arrays.copyOf(prevX, capacity);
+            prevY = Arrays.copyOf(prevY, capacity);
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+            vx = Arrays.copyOf(vx, capacity);
+            vy = Arrays.copyOf(vy, capacity);
+            health = Arrays.copyOf(health, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+    }
+}
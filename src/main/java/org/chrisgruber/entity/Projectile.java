@@ -1,26 +1,83 @@
 package org.chrisgruber.entity;
 
-import static org.lwjgl.opengl.GL11.*;
+import org.chrisgruber.simulation.CommandBuffer;
+
+import java.nio.ByteBuffer;
 
 public class Projectile extends Entity {
-    private final float targetX;
-    private final float targetY;
-    private final float damage;
-    private final float speed;
-    private final boolean friendly; // True if shot by player, false if shot by enemy
-    private float lifetime = 4.0f; // Maximum lifetime in seconds to prevent stray projectiles
-
-    public Projectile(float startX, float startY, float targetX, float targetY, float damage, float size, float speed, boolean friendly) {
-        super(startX, startY, size, size);
+    // Radians per second a homing shot may turn; enough to follow a ship round a bend, not
+    // enough to circle back for one it has passed
+    public static final float HOMING_TURN_RATE = 1.5f;
+
+    private float targetX;
+    private float targetY;
+    private float damage;
+    private float speed;
+    private float lifetime;
+
+    // Ship a homing shot follows, or null. The id catches the handle being reused for another ship.
+    private Entity homingTarget;
+    private int homingTargetId;
+
+    // Ship slot read from a snapshot until linkTarget() looks it up
+    private int savedTargetSlot = -1;
+
+    // Projectiles are pooled, so state is set up in reset() each time one is added to the store
+    public Projectile() {
+        super(EntityKind.PROJECTILE);
+    }
+
+    // Call after the projectile has been added to the store
+    public void reset(float targetX, float targetY, float damage, float speed, boolean friendly) {
         this.targetX = targetX;
         this.targetY = targetY;
         this.damage = damage;
         this.speed = speed;
-        this.friendly = friendly;
+        this.lifetime = 4.0f; // Maximum lifetime in seconds to prevent stray projectiles
+
+        // True if shot by player, false if shot by enemy
+        if (friendly) {
+            bucket.flags[slot] |= EntityStore.FLAG_FRIENDLY;
+        }
+        this.homingTarget = null;
+    }
+
+    // Makes the shot follow the ship, starting toward the aim point it was given
+    public void setHomingTarget(Entity target) {
+        this.homingTarget = target;
+        this.homingTargetId = target.getId();
+        float dx = targetX - bucket.x[slot];
+        float dy = targetY - bucket.y[slot];
+        float distance = (float) Math.sqrt(dx*dx + dy*dy);
+        if (distance > 0) {
+            bucket.vx[slot] = dx / distance * speed;
+            bucket.vy[slot] = dy / distance * speed;
+        }
     }
 
     @Override
-    public void update(float deltaTime) {
+    public void update(float deltaTime, CommandBuffer commands) {
+        // Once its ship is gone a homing shot flies on to where it last aimed, like any other
+        if (homingTarget != null && (homingTarget.getId() != homingTargetId || !homingTarget.isActive())) {
+            homingTarget = null;
+        }
+        if (homingTarget != null) {
+            home(deltaTime);
+        } else {
+            moveToTarget(deltaTime);
+        }
+
+        // Reduce lifetime
+        lifetime -= deltaTime;
+        if (lifetime <= 0) {
+            setActive(false);
+        }
+    }
+
+    private void moveToTarget(float deltaTime) {
+        float x = bucket.x[slot];
+        float y = bucket.y[slot];
+
         // Move toward target
         float dx = targetX - x;
         float dy = targetY - y;
@@ -28,71 +85,128 @@ public class Projectile extends Entity {
 
         // If very close to target, deactivate
         if (distance < 0.05f) {
-            this.active = false;
+            setActive(false);
             return;
         }
 
-        // Update position
+        // Update position, stopping at the target rather than overshooting it on long ticks
         if (distance > 0) {
-            x += dx / distance * speed * deltaTime;
-            y += dy / distance * speed * deltaTime;
+            float vx = dx / distance * speed;
+            float vy = dy / distance * speed;
+            bucket.vx[slot] = vx;
+            bucket.vy[slot] = vy;
+            if (speed * deltaTime >= distance) {
+                bucket.x[slot] = targetX;
+                bucket.y[slot] = targetY;
+            } else {
+                bucket.x[slot] = x + vx * deltaTime;
+                bucket.y[slot] = y + vy * deltaTime;
+            }
         }
+    }
 
-        // Reduce lifetime
-        lifetime -= deltaTime;
-        if (lifetime <= 0) {
-            this.active = false;
+    // Turns toward the ship's intercept point by at most the turn rate, then moves at full speed.
+    // The aim point follows along so the shot still ends where it last aimed if the ship is lost.
+    private void home(float deltaTime) {
+        float x = bucket.x[slot];
+        float y = bucket.y[slot];
+        float dx = homingTarget.getX() - x;
+        float dy = homingTarget.getY() - y;
+        float shipVx = homingTarget.getVx();
+        float shipVy = homingTarget.getVy();
+        float time = interceptTime(dx, dy, shipVx, shipVy, speed);
+        if (time > 0) {
+            dx += shipVx * time;
+            dy += shipVy * time;
         }
-    }
+        targetX = x + dx;
+        targetY = y + dy;
 
-    @Override
-    public void render() {
-        // Draw the projectile as a small glowing circle
-        if (friendly) {
-            // Green energy ball for player towers
-            drawEnergyBall(0.2f, 0.9f, 0.3f);
-        } else {
-            // Red energy ball for enemies
-            drawEnergyBall(0.9f, 0.2f, 0.2f);
+        // StrictMath so replays turn the same on every machine
+        float heading = (float) StrictMath.atan2(bucket.vy[slot], bucket.vx[slot]);
+        float turn = (float) StrictMath.atan2(dy, dx) - heading;
+        if (turn > Math.PI) {
+            turn -= (float) (2 * Math.PI);
+        } else if (turn < -Math.PI) {
+            turn += (float) (2 * Math.PI);
+        }
+        // Past the ship: a light turn would take longer to come round than the shot lives
+        if (Math.abs(turn) > Math.PI / 2) {
+            setActive(false);
+            return;
         }
+        float maxTurn = HOMING_TURN_RATE * deltaTime;
+        heading += Math.max(-maxTurn, Math.min(maxTurn, turn));
+
+        float vx = (float) StrictMath.cos(heading) * speed;
+        float vy = (float) StrictMath.sin(heading) * speed;
+        bucket.vx[slot] = vx;
+        bucket.vy[slot] = vy;
+        bucket.x[slot] = x + vx * deltaTime;
+        bucket.y[slot] = y + vy * deltaTime;
     }
 
-    private void drawEnergyBall(float r, float g, float b) {
-        // Outer glow
-        glBegin(GL_TRIANGLE_FAN);
-        glColor4f(r, g, b, 0.0f); // Transparent outer edge
-
-        // Center point
-        glColor4f(r, g, b, 0.9f); // Opaque center
-        glVertex2f(x, y);
-
-        // Outer points
-        float outerSize = width * 1.5f;
-        int segments = 12;
-        for (int i = 0; i <= segments; i++) {
-            float angle = (float) (i * 2 * Math.PI / segments);
-            glColor4f(r, g, b, 0.0f); // Transparent edge
-            glVertex2f(
-                    x + (float) Math.cos(angle) * outerSize,
-                    y + (float) Math.sin(angle) * outerSize
-            );
+    // Seconds until a shot at this speed can meet a target offset by (dx, dy) and moving at
+    // (vx, vy), or -1 if it never can. Smallest positive root of |d + v t| = speed t.
+    public static float interceptTime(float dx, float dy, float vx, float vy, float speed) {
+        float a = vx*vx + vy*vy - speed*speed;
+        float b = 2 * (dx*vx + dy*vy);
+        float c = dx*dx + dy*dy;
+
+        // Target as fast as the shot: the quadratic is linear
+        if (Math.abs(a) < 1e-6f) {
+            return b < 0 ? -c / b : -1;
+        }
+
+        float discriminant = b*b - 4*a*c;
+        if (discriminant < 0) {
+            return -1;
+        }
+        float root = (float) Math.sqrt(discriminant);
+        float t1 = (-b - root) / (2 * a);
+        float t2 = (-b + root) / (2 * a);
+        float t = Math.min(t1, t2);
+        if (t <= 0) {
+            t = Math.max(t1, t2);
         }
-        glEnd();
-
-        // Inner solid part
-        glBegin(GL_TRIANGLE_FAN);
-        glColor4f(r * 1.2f, g * 1.2f, b * 1.2f, 0.9f); // Brighter center
-        glVertex2f(x, y);
-
-        for (int i = 0; i <= segments; i++) {
-            float angle = (float) (i * 2 * Math.PI / segments);
-            glColor4f(r, g, b, 0.8f);
-            glVertex2f(
-                    x + (float) Math.cos(angle) * width / 2,
-                    y + (float) Math.sin(angle) * width / 2
-            );
+        return t > 0 ? t : -1;
+    }
+
+    @Override
+    public int getStateBytes() {
+        return 5 * Float.BYTES + Integer.BYTES;
+    }
+
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        buffer.putFloat(targetX);
+        buffer.putFloat(targetY);
+        buffer.putFloat(damage);
+        buffer.putFloat(speed);
+        buffer.putFloat(lifetime);
+        // Ship slots are kept in a snapshot where handle ids are not
+        boolean homing = homingTarget != null && homingTarget.getId() == homingTargetId && homingTarget.isActive();
+        buffer.putInt(homing ? homingTarget.getSlot() : -1);
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        targetX = buffer.getFloat();
+        targetY = buffer.getFloat();
+        damage = buffer.getFloat();
+        speed = buffer.getFloat();
+        lifetime = buffer.getFloat();
+        savedTargetSlot = buffer.getInt();
+    }
+
+    // After a snapshot load, once the ships are back in their slots
+    public void linkTarget(EntityStore.Bucket ships) {
+        homingTarget = null;
+        if (savedTargetSlot >= 0) {
+            homingTarget = ships.get(savedTargetSlot);
+            homingTargetId = homingTarget.getId();
+            savedTargetSlot = -1;
         }
-        glEnd();
     }
 
     public float getDamage() {
@@ -100,6 +214,6 @@ public class Projectile extends Entity {
     }
 
     public boolean isFriendly() {
-        return friendly;
+        return (bucket.flags[slot] & EntityStore.FLAG_FRIENDLY) != 0;
     }
-}
\ No newline at end of file
+}
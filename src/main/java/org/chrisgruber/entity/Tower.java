@@ -1,116 +1,157 @@
 package org.chrisgruber.entity;
 
-import org.chrisgruber.Game;
+import org.chrisgruber.simulation.CommandBuffer;
+import org.chrisgruber.simulation.GameStats;
+import org.chrisgruber.simulation.Simulation;
 
-import java.util.List;
-
-import static org.lwjgl.opengl.GL11.*;
+import java.nio.ByteBuffer;
 
 public class Tower extends Entity {
-    private final float attackRange;
-    private final float attackDamage;
-    private final float attackCooldown;
+    public static final float SIZE = 0.1f;
+    private static final float PROJECTILE_SPEED = 0.6f;
+    private static final TowerAim[] AIMS = TowerAim.values();
+
+    // From the game's stats when placed; saved with the tower, since the stats may change later
+    private float attackRange;
+    private float attackDamage;
+    private float attackCooldown;
+    private TowerAim aim;
     private float currentCooldown = 0f;
-    private final Game game; // Reference to the game for accessing entities and creating projectiles
-
-    public Tower(float x, float y, Game game) {
-        super(x, y, 0.1f, 0.1f);
-        this.attackRange = 0.5f;
-        this.attackDamage = 10f;
-        this.attackCooldown = 3f; // 2 seconds between attacks
-        this.game = game;
+    private final Simulation simulation; // Reference to the simulation for finding targets
+
+    // Ship the tower keeps shooting at while it stays in range, so most shots skip the search.
+    // The id catches the handle being reused for another ship.
+    private Entity target;
+    private int targetId;
+
+    // Ship slot read from a snapshot until linkTarget() looks it up
+    private int savedTargetSlot = -1;
+
+    public Tower(Simulation simulation, GameStats stats) {
+        super(EntityKind.TOWER);
+        this.attackRange = stats.getTowerRange();
+        this.attackDamage = stats.getTowerDamage();
+        this.attackCooldown = stats.getTowerCooldown();
+        this.aim = stats.getTowerAim();
+        this.simulation = simulation;
     }
 
     @Override
-    public void update(float deltaTime) {
+    public void update(float deltaTime, CommandBuffer commands) {
         // Decrease current cooldown
         if (currentCooldown > 0) {
             currentCooldown -= deltaTime;
         }
 
-        // If we can attack, find the closest enemy
+        // If we can attack, keep shooting the locked ship or find the closest enemy
         if (canAttack()) {
-            Entity target = findClosestEnemy();
+            if (!isTargetValid()) {
+                target = findClosestEnemy();
+                if (target != null) {
+                    targetId = target.getId();
+                }
+            }
             if (target != null) {
-                attack(target);
+                attack(target, commands);
             }
         }
     }
 
     @Override
-    public void render() {
-        // Draw the tower as a small square
-        glBegin(GL_QUADS);
-        glColor3f(0.7f, 0.7f, 0.7f); // Grey color
-        glVertex2f(x - width/2, y - height/2);
-        glVertex2f(x + width/2, y - height/2);
-        glVertex2f(x + width/2, y + height/2);
-        glVertex2f(x - width/2, y + height/2);
-        glEnd();
-
-        // Draw the attack range (for debugging)
-        glBegin(GL_LINE_LOOP);
-        glColor3f(1.0f, 1.0f, 1.0f);
-        for (int i = 0; i < 20; i++) {
-            float angle = (float) (i * 2 * Math.PI / 20);
-            float xPos = x + (float) Math.cos(angle) * attackRange;
-            float yPos = y + (float) Math.sin(angle) * attackRange;
-            glVertex2f(xPos, yPos);
-        }
-        glEnd();
-
-        // Show cooldown indicator
-        if (!canAttack()) {
-            float cooldownPercentage = currentCooldown / attackCooldown;
-            glBegin(GL_QUADS);
-            glColor3f(0.8f, 0.2f, 0.2f); // Red color for cooldown
-            glVertex2f(x - width/2, y + height/2 + 0.05f);
-            glVertex2f(x - width/2 + width * (1 - cooldownPercentage), y + height/2 + 0.05f);
-            glVertex2f(x - width/2 + width * (1 - cooldownPercentage), y + height/2 + 0.03f);
-            glVertex2f(x - width/2, y + height/2 + 0.03f);
-            glEnd();
+    public int getStateBytes() {
+        return 4 * Float.BYTES + 1 + Integer.BYTES;
+    }
+
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        buffer.putFloat(attackRange);
+        buffer.putFloat(attackDamage);
+        buffer.putFloat(attackCooldown);
+        buffer.put((byte) aim.ordinal());
+        buffer.putFloat(currentCooldown);
+        // Ship slots are kept in a snapshot where handle ids are not. The lock is saved even
+        // out of range, since the ship may sail back in before the next shot.
+        buffer.putInt(isTargetAlive() ? target.getSlot() : -1);
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        attackRange = buffer.getFloat();
+        attackDamage = buffer.getFloat();
+        attackCooldown = buffer.getFloat();
+        aim = AIMS[buffer.get()];
+        currentCooldown = buffer.getFloat();
+        savedTargetSlot = buffer.getInt();
+    }
+
+    // After a snapshot load, once the ships are back in their slots
+    public void linkTarget(EntityStore.Bucket ships) {
+        target = null;
+        if (savedTargetSlot >= 0) {
+            target = ships.get(savedTargetSlot);
+            targetId = target.getId();
+            savedTargetSlot = -1;
         }
     }
 
-    private Entity findClosestEnemy() {
-        List<Entity> entities = game.getEntities();
-        Entity closest = null;
-        float closestDistance = Float.MAX_VALUE;
-
-        for (Entity entity : entities) {
-            if (entity instanceof EnemyShip) {
-                float dx = entity.getX() - x;
-                float dy = entity.getY() - y;
-                float distance = (float) Math.sqrt(dx*dx + dy*dy);
-
-                if (distance <= attackRange && distance < closestDistance) {
-                    closest = entity;
-                    closestDistance = distance;
-                }
-            }
+    // The locked ship is still the same one and afloat
+    private boolean isTargetAlive() {
+        return target != null && target.getId() == targetId && target.isActive();
+    }
+
+    // Checked before every shot: a couple of field reads and a squared distance
+    private boolean isTargetValid() {
+        if (!isTargetAlive()) {
+            return false;
         }
+        float dx = target.getX() - getX();
+        float dy = target.getY() - getY();
+        return dx*dx + dy*dy <= attackRange * attackRange;
+    }
 
-        return closest;
+    private Entity findClosestEnemy() {
+        // Nearest ship within range, using squared distances over the spatial index
+        return simulation.getSpatialIndex().findNearest(getX(), getY(), attackRange, EntityKind.SHIP);
     }
 
     public boolean canAttack() {
         return currentCooldown <= 0;
     }
 
-    public void attack(Entity target) {
+    public float getAttackRange() {
+        return attackRange;
+    }
+
+    // Share of the cooldown still to run, 1 right after firing and 0 when ready
+    public float getCooldownFraction() {
+        return Math.max(0, currentCooldown / attackCooldown);
+    }
+
+    public void attack(Entity target, CommandBuffer commands) {
         currentCooldown = attackCooldown;
 
-        // Create a projectile targeted at the enemy
-        Projectile projectile = new Projectile(
-                x, y,
-                target.getX(), target.getY(),
+        // Lead the ship. The shot first moves on the next tick, after the ship has, so both
+        // start from where they are now.
+        float aimX = target.getX();
+        float aimY = target.getY();
+        if (aim != TowerAim.DIRECT) {
+            float time = Projectile.interceptTime(aimX - getX(), aimY - getY(),
+                    target.getVx(), target.getVy(), PROJECTILE_SPEED);
+            if (time > 0) {
+                aimX += target.getVx() * time;
+                aimY += target.getVy() * time;
+            }
+        }
+
+        // Create a projectile targeted at the enemy once the update phase is over
+        commands.spawnProjectile(
+                getX(), getY(),
+                aimX, aimY,
                 attackDamage,
                 0.03f, // Size
-                0.6f, // Speed
-                true  // Friendly projectile
+                PROJECTILE_SPEED,
+                true,  // Friendly projectile
+                aim == TowerAim.HOMING ? target : null
         );
-
-        // Add projectile to the game
-        game.addEntity(projectile);
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package org.chrisgruber.entity;
+
+// Where towers point their shots
+public enum TowerAim {
+    // At the ship's position when the shot is fired
+    DIRECT,
+    // At the point where the shot meets the ship if the ship holds its course and speed
+    INTERCEPT,
+    // Intercept, then the shot turns slowly after the ship if it changes course
+    HOMING
+}
@@ -0,0 +1,171 @@
+package org.chrisgruber.host;
+
+import org.chrisgruber.metrics.LatencyHistogram;
+import org.chrisgruber.util.Options;
+import org.chrisgruber.wave.Scenario;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Runs many matches of a scenario at once on a match host, in real time, and reports tick times
+// and how late matches ran, per scenario and for the worst matches. Exits with status 1 if a
+// match dropped ticks, was refused for lack of capacity or failed, so a script can search for
+// the largest number of matches per core a node can keep on time.
+// Usage: HostRunner [--matches=N] [--workers=N] [--matches-per-core=N] [--scenario=NAME]
+//                   [--ticks=N] [--seed=N] [--heavy=N] [--heavy-scenario=NAME] [--metrics=FILE.csv]
+// Heavy matches run a second scenario alongside the others, e.g. to check a few big battles do
+// not slow down the small ones. The metrics file gets one row per match.
+public class HostRunner {
+    private int matchCount = 100;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int matchesPerCore = 200;
+    private String scenarioName = "skirmish";
+    private int ticks = 0;
+    private long seed = new Random().nextLong();
+    private int heavyCount = 0;
+    private String heavyScenarioName = "siege-10k";
+    private Path metricsPath;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        HostRunner runner = new HostRunner();
+        runner.parseArgs(args);
+        if (!runner.run()) {
+            System.exit(1);
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        Options options = Options.parse(args, "--matches", "--workers", "--matches-per-core", "--scenario",
+                "--ticks", "--seed", "--heavy", "--heavy-scenario", "--metrics");
+        matchCount = options.getInt("--matches", matchCount);
+        workers = options.getInt("--workers", workers);
+        matchesPerCore = options.getInt("--matches-per-core", matchesPerCore);
+        scenarioName = options.getString("--scenario", scenarioName);
+        ticks = options.getInt("--ticks", ticks);
+        seed = options.getLong("--seed", seed);
+        heavyCount = options.getInt("--heavy", heavyCount);
+        heavyScenarioName = options.getString("--heavy-scenario", heavyScenarioName);
+        metricsPath = options.getPath("--metrics");
+    }
+
+    public boolean run() throws IOException, InterruptedException {
+        Scenario scenario = Scenario.load(scenarioName);
+        Scenario heavyScenario = heavyCount > 0 ? Scenario.load(heavyScenarioName) : null;
+        int matchTicks = ticks > 0 ? ticks : scenario.getTicks();
+
+        // Compile the hot paths on a throwaway match first, so the interpreter's first seconds
+        // are not counted against the host
+        Match warmup = new Match(-1, scenario, seed - 1, scenario.getWarmupTicks());
+        for (int tick = 0; tick < scenario.getWarmupTicks(); tick++) {
+            warmup.getSimulation().update(1.0f / scenario.getTickRate());
+        }
+
+        boolean passed = true;
+        try (MatchHost host = new MatchHost(workers, matchesPerCore)) {
+            // Every match gets its own seed, so each plays a different island and waves
+            long start = System.nanoTime();
+            int refused = 0;
+            for (int id = 0; id < matchCount + heavyCount; id++) {
+                Scenario matchScenario = id < heavyCount ? heavyScenario : scenario;
+                if (!host.add(new Match(id, matchScenario, seed + id, matchTicks))) {
+                    refused++;
+                }
+            }
+            System.out.printf("Created %d matches in %.1f s on %d workers (up to %d per core, capacity %d), "
+                            + "%d ticks each at %d Hz, seed %d%n",
+                    host.getMatches().size(), (System.nanoTime() - start) / 1e9, host.getWorkers(),
+                    host.getMaxMatchesPerCore(), host.getCapacity(), matchTicks, scenario.getTickRate(), seed);
+            if (refused > 0) {
+                System.out.printf("Refused %d matches: over the per-core cap%n", refused);
+                passed = false;
+            }
+
+            start = System.nanoTime();
+            host.start();
+            host.awaitFinished();
+            System.out.printf("Ran for %.1f s%n", (System.nanoTime() - start) / 1e9);
+
+            passed &= report(host.getMatches(), scenario.getName());
+            if (heavyScenario != null) {
+                passed &= report(host.getMatches(), heavyScenario.getName());
+            }
+            reportWorst(host.getMatches());
+            if (metricsPath != null) {
+                writeMetrics(host.getMatches());
+                System.out.println("Wrote per-match metrics to " + metricsPath);
+            }
+        }
+        System.out.println(passed ? "PASS" : "FAIL: matches fell behind, were refused or failed");
+        return passed;
+    }
+
+    // Totals for the matches of one scenario; false if any fell behind or failed
+    private boolean report(List<Match> matches, String scenarioName) {
+        LatencyHistogram tickTimes = new LatencyHistogram();
+        LatencyHistogram lateness = new LatencyHistogram();
+        int count = 0;
+        long ticksRun = 0;
+        long dropped = 0;
+        int failed = 0;
+        int behind = 0;
+        for (Match match : matches) {
+            if (!match.getScenarioName().equals(scenarioName)) continue;
+            count++;
+            tickTimes.add(match.getTickTimes());
+            lateness.add(match.getLateness());
+            ticksRun += match.getTicksRun();
+            dropped += match.getDroppedTicks();
+            if (match.getFailure() != null) {
+                failed++;
+                System.out.printf("Match %d failed: %s%n", match.getId(), match.getFailure());
+            }
+            if (match.getDroppedTicks() > 0) {
+                behind++;
+            }
+        }
+
+        System.out.printf("%s: %d matches, %d ticks run, %d dropped by %d matches, %d failed%n",
+                scenarioName, count, ticksRun, dropped, behind, failed);
+        System.out.printf("  tick time p50 %.3f ms, p99 %.3f ms, max %.3f ms; late start p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                tickTimes.getPercentile(0.50) / 1e6, tickTimes.getPercentile(0.99) / 1e6, tickTimes.getMax() / 1e6,
+                lateness.getPercentile(0.50) / 1e6, lateness.getPercentile(0.99) / 1e6, lateness.getMax() / 1e6);
+        return dropped == 0 && failed == 0;
+    }
+
+    // The matches that ran latest, worst first
+    private void reportWorst(List<Match> matches) {
+        List<Match> sorted = new ArrayList<>(matches);
+        sorted.sort((a, b) -> Long.compare(b.getLateness().getPercentile(0.99), a.getLateness().getPercentile(0.99)));
+        System.out.println("Latest matches:");
+        for (Match match : sorted.subList(0, Math.min(5, sorted.size()))) {
+            System.out.printf("  #%d %s: tick p99 %.3f ms, late p99 %.3f ms, %d dropped ticks, peak %d ships%n",
+                    match.getId(), match.getScenarioName(),
+                    match.getTickTimes().getPercentile(0.99) / 1e6, match.getLateness().getPercentile(0.99) / 1e6,
+                    match.getDroppedTicks(), match.getPeakShips());
+        }
+    }
+
+    // Durations in microseconds, like MetricsWriter
+    private void writeMetrics(List<Match> matches) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(metricsPath)) {
+            out.write("match,scenario,ticks_run,dropped_ticks,peak_ships,tick_p50_us,tick_p99_us,tick_max_us,"
+                    + "late_p50_us,late_p99_us,late_max_us,failed\n");
+            for (Match match : matches) {
+                LatencyHistogram tickTimes = match.getTickTimes();
+                LatencyHistogram lateness = match.getLateness();
+                out.write(String.format(Locale.ROOT, "%d,%s,%d,%d,%d,%d,%d,%d,%d,%d,%d,%b%n",
+                        match.getId(), match.getScenarioName(), match.getTicksRun(), match.getDroppedTicks(),
+                        match.getPeakShips(),
+                        tickTimes.getPercentile(0.50) / 1000, tickTimes.getPercentile(0.99) / 1000, tickTimes.getMax() / 1000,
+                        lateness.getPercentile(0.50) / 1000, lateness.getPercentile(0.99) / 1000, lateness.getMax() / 1000,
+                        match.getFailure() != null));
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.chrisgruber.host;
+
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.metrics.LatencyHistogram;
+import org.chrisgruber.simulation.FixedTimestep;
+import org.chrisgruber.simulation.Simulation;
+import org.chrisgruber.wave.Scenario;
+import org.chrisgruber.wave.WaveScheduler;
+
+// One game on a match host: its own simulation, island and waves, paced in real time at the
+// scenario's tick rate. The host calls runDue() whenever the match is due; it runs the ticks
+// real time has covered, capped so a match that falls behind drops ticks instead of holding a
+// worker, and reports when it next needs to run. Only one worker runs a match at a time.
+public class Match {
+    // Most ticks one call may run before handing the worker back
+    private static final int MAX_TICKS_PER_RUN = 5;
+
+    private final int id;
+    private final String scenarioName;
+    private final Simulation simulation;
+    private final FixedTimestep timestep;
+    private final long tickNanos;
+    private final int ticks;
+
+    // Time spent in each tick, and how late each run started after it was due
+    private final LatencyHistogram tickTimes = new LatencyHistogram();
+    private final LatencyHistogram lateness = new LatencyHistogram();
+
+    private long lastRun;
+    private long nextDue;
+    private int ticksRun = 0;
+    private int peakShips = 0;
+    private Throwable failure;
+
+    public Match(int id, Scenario scenario, long seed, int ticks) {
+        this.id = id;
+        this.scenarioName = scenario.getName();
+        this.simulation = new Simulation(scenario.getGridSize(), seed);
+        simulation.init();
+        simulation.placeTowersOnLand(scenario.getTowers(), seed);
+        simulation.setWaves(new WaveScheduler(scenario.getWaves(), scenario.getMaxSpawnsPerTick()));
+
+        // Build the ships' shared paths now, while the match is created, rather than in its
+        // first tick on a worker
+        simulation.getFlowField(0, 0);
+
+        this.timestep = new FixedTimestep(scenario.getTickRate(), MAX_TICKS_PER_RUN);
+        this.tickNanos = 1_000_000_000L / scenario.getTickRate();
+        this.ticks = ticks;
+    }
+
+    void start(long now) {
+        lastRun = now;
+        nextDue = now + tickNanos;
+    }
+
+    // Runs the ticks due by now and returns when the match next needs to run, or -1 once it
+    // has finished or failed
+    long runDue(long now) {
+        lateness.record(now - nextDue);
+        try {
+            int due = timestep.advance((now - lastRun) / 1e9);
+            lastRun = now;
+            for (int i = 0; i < due && ticksRun < ticks; i++) {
+                long tickStart = System.nanoTime();
+                simulation.update(timestep.getStepSeconds());
+                tickTimes.record(System.nanoTime() - tickStart);
+                ticksRun++;
+            }
+            peakShips = Math.max(peakShips, simulation.getEntityStore().size(EntityKind.SHIP));
+        } catch (Throwable e) {
+            // Only this match stops; the host keeps running the others. Errors such as a stack
+            // overflow are caught too, since otherwise the host would wait for this match forever.
+            failure = e;
+            return -1;
+        }
+
+        if (ticksRun >= ticks) {
+            return -1;
+        }
+        // Next tick boundary after whatever the accumulator still holds
+        nextDue = now + (long) ((timestep.getStepSeconds() * (1 - timestep.getAlpha())) * 1e9);
+        return nextDue;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getScenarioName() {
+        return scenarioName;
+    }
+
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    public LatencyHistogram getTickTimes() {
+        return tickTimes;
+    }
+
+    public LatencyHistogram getLateness() {
+        return lateness;
+    }
+
+    public int getTicksRun() {
+        return ticksRun;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public long getDroppedTicks() {
+        return timestep.getDroppedTicks();
+    }
+
+    public int getPeakShips() {
+        return peakShips;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    // The exception that stopped the match, or null
+    public Throwable getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,103 @@
+package org.chrisgruber.host;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Runs many independent matches on one shared pool of worker threads. Each match is a task
+// scheduled for its next tick boundary; a worker runs the ticks that are due and schedules the
+// match again, so idle matches cost nothing and a slow match holds at most one worker for at
+// most a few ticks before the others get their turn. Matches share no game state.
+//
+// The host admits at most maxMatchesPerCore matches per worker, so a node can be sized by
+// finding the largest per-core count that keeps every match on time.
+public class MatchHost implements AutoCloseable {
+    private final int workers;
+    private final int maxMatchesPerCore;
+    private final ScheduledThreadPoolExecutor executor;
+    private final List<Match> matches = new ArrayList<>();
+    private CountDownLatch running = new CountDownLatch(0);
+
+    public MatchHost(int workers, int maxMatchesPerCore) {
+        if (workers < 1 || maxMatchesPerCore < 1) {
+            throw new IllegalArgumentException("Workers and matches per core must be positive");
+        }
+        this.workers = workers;
+        this.maxMatchesPerCore = maxMatchesPerCore;
+        this.executor = new ScheduledThreadPoolExecutor(workers, runnable -> {
+            Thread thread = new Thread(runnable, "match-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getCapacity() {
+        return workers * maxMatchesPerCore;
+    }
+
+    // Adds a match to run once start() is called; false if the host is full
+    public boolean add(Match match) {
+        if (matches.size() >= getCapacity()) {
+            return false;
+        }
+        matches.add(match);
+        return true;
+    }
+
+    public void start() {
+        running = new CountDownLatch(matches.size());
+        long now = System.nanoTime();
+
+        // Spread the first ticks over one tick length so the matches do not all fall due together
+        for (int i = 0; i < matches.size(); i++) {
+            Match match = matches.get(i);
+            long offset = match.getTickNanos() * i / matches.size();
+            match.start(now + offset);
+            executor.schedule(new MatchTask(match), match.getTickNanos() + offset, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Waits until every match has finished or failed
+    public void awaitFinished() throws InterruptedException {
+        running.await();
+    }
+
+    public List<Match> getMatches() {
+        return matches;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getMaxMatchesPerCore() {
+        return maxMatchesPerCore;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // Runs one match's due ticks, then schedules it for its next tick
+    private class MatchTask implements Runnable {
+        private final Match match;
+
+        MatchTask(Match match) {
+            this.match = match;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            long nextDue = match.runDue(now);
+            if (nextDue < 0) {
+                running.countDown();
+                return;
+            }
+            executor.schedule(this, Math.max(0, nextDue - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.chrisgruber.input;
+
+// Kinds of raw window input. Each event carries the same primitive fields (a code, an action,
+// x, y and the time it arrived), so they fit in fixed queue slots.
+public enum InputEvent {
+    // code = GLFW key, action = GLFW press, release or repeat
+    KEY,
+    // code = GLFW mouse button, action = press or release, x/y = cursor in window coordinates
+    MOUSE_BUTTON,
+    // x/y = cursor in window coordinates, value = vertical scroll offset
+    SCROLL
+}
@@ -2,54 +2,40 @@ package org.chrisgruber.input;
 
 import static org.lwjgl.glfw.GLFW.*;
 
+// Which keys are held, kept up to date from key events drained from the input queue rather
+// than by polling each key every frame
 public class InputHandler {
-    private final long window;
-
-    // Movement states
-    private boolean moveLeft = false;
-    private boolean moveRight = false;
-    private boolean moveUp = false;
-    private boolean moveDown = false;
-    private boolean shooting = false;
-
-    public InputHandler(long window) {
-        this.window = window;
-    }
-
-    public void update() {
-        // Update movement states based on key states
-        moveLeft = glfwGetKey(window, GLFW_KEY_A) == GLFW_PRESS ||
-                glfwGetKey(window, GLFW_KEY_LEFT) == GLFW_PRESS;
-
-        moveRight = glfwGetKey(window, GLFW_KEY_D) == GLFW_PRESS ||
-                glfwGetKey(window, GLFW_KEY_RIGHT) == GLFW_PRESS;
-
-        moveUp = glfwGetKey(window, GLFW_KEY_W) == GLFW_PRESS ||
-                glfwGetKey(window, GLFW_KEY_UP) == GLFW_PRESS;
-
-        moveDown = glfwGetKey(window, GLFW_KEY_S) == GLFW_PRESS ||
-                glfwGetKey(window, GLFW_KEY_DOWN) == GLFW_PRESS;
-
-        shooting = glfwGetKey(window, GLFW_KEY_SPACE) == GLFW_PRESS;
+    private final boolean[] keyDown = new boolean[GLFW_KEY_LAST + 1];
+
+    public void onKey(int key, int action) {
+        // Unknown keys come through as -1
+        if (key < 0 || key > GLFW_KEY_LAST) {
+            return;
+        }
+        if (action == GLFW_PRESS) {
+            keyDown[key] = true;
+        } else if (action == GLFW_RELEASE) {
+            keyDown[key] = false;
+        }
     }
 
     public boolean isMoveLeft() {
-        return moveLeft;
+        return keyDown[GLFW_KEY_A] || keyDown[GLFW_KEY_LEFT];
     }
 
     public boolean isMoveRight() {
-        return moveRight;
+        return keyDown[GLFW_KEY_D] || keyDown[GLFW_KEY_RIGHT];
     }
 
     public boolean isMoveUp() {
-        return moveUp;
+        return keyDown[GLFW_KEY_W] || keyDown[GLFW_KEY_UP];
     }
 
     public boolean isMoveDown() {
-        return moveDown;
+        return keyDown[GLFW_KEY_S] || keyDown[GLFW_KEY_DOWN];
     }
 
     public boolean isShooting() {
-        return shooting;
+        return keyDown[GLFW_KEY_SPACE];
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package org.chrisgruber.input;
+
+import org.chrisgruber.util.MpscRing;
+
+// Window input waiting to be applied. Callbacks copy primitive fields into a preallocated ring
+// with the time the event arrived, and the game drains the ring between simulation ticks, so
+// input never reaches the simulation from inside a callback and queueing never allocates.
+// A full ring drops events (counted) rather than blocking.
+//
+// Any number of threads may push, through the same MpscRing sequencing as EventLog. Only one
+// thread drains.
+public class InputQueue {
+    // Called for each drained event, in the order the events were pushed
+    public interface Listener {
+        void onInput(InputEvent event, int code, int action, float x, float y, float value, long timeNanos);
+    }
+
+    private final MpscRing ring;
+    private final byte[] type;
+    private final int[] code;
+    private final int[] action;
+    private final float[] x, y;
+    private final float[] value;
+    private final long[] time;
+
+    private static final InputEvent[] EVENTS = InputEvent.values();
+
+    // Capacity is rounded up to a power of two
+    public InputQueue(int capacity) {
+        this.ring = new MpscRing(capacity);
+        int size = ring.getCapacity();
+        this.type = new byte[size];
+        this.code = new int[size];
+        this.action = new int[size];
+        this.x = new float[size];
+        this.y = new float[size];
+        this.value = new float[size];
+        this.time = new long[size];
+    }
+
+    // Stamps the event with System.nanoTime(); returns false if the queue was full
+    public boolean push(InputEvent event, int code, int action, float x, float y, float value) {
+        return push(event, code, action, x, y, value, System.nanoTime());
+    }
+
+    public boolean push(InputEvent event, int code, int action, float x, float y, float value, long timeNanos) {
+        long sequence = ring.claim();
+        if (sequence < 0) {
+            return false;
+        }
+
+        int index = ring.index(sequence);
+        this.type[index] = (byte) event.ordinal();
+        this.code[index] = code;
+        this.action[index] = action;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.value[index] = value;
+        this.time[index] = timeNanos;
+        ring.publish(sequence);
+        return true;
+    }
+
+    // Hands every published event to the listener and returns how many there were.
+    // Events pushed while draining may be left for the next call.
+    public int drain(Listener listener) {
+        int drained = 0;
+        long sequence = ring.getReadSequence();
+        while (ring.isPublished(sequence)) {
+            int index = ring.index(sequence);
+            listener.onInput(EVENTS[type[index]], code[index], action[index],
+                    x[index], y[index], value[index], time[index]);
+            sequence++;
+            drained++;
+
+            // Free each slot for producers once it has been read
+            ring.release(sequence);
+        }
+        return drained;
+    }
+
+    // Events lost because the ring was full
+    public long getDroppedCount() {
+        return ring.getDroppedCount();
+    }
+}
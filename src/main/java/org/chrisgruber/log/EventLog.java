@@ -0,0 +1,164 @@
+package org.chrisgruber.log;
+
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.util.MpscRing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.locks.LockSupport;
+
+// Game event log that keeps formatting and I/O off the simulation thread. Producers copy
+// primitive fields into a preallocated ring buffer; a background thread formats the events
+// and writes them out in batches. Logging below the level costs one volatile read, and a full
+// ring drops events (counted) rather than stalling the game.
+//
+// Any number of threads may log. Each claims a sequence number from the MpscRing, fills that
+// slot and then publishes it; the writer thread only reads slots whose sequence has been
+// published.
+public class EventLog implements AutoCloseable {
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final MpscRing ring;
+    private final byte[] type;
+    private final int[] tick;
+    private final int[] entityId;
+    private final float[] x, y;
+    private final float[] value1, value2;
+
+    // Ordinal of the lowest level that is logged
+    private volatile int threshold;
+    private volatile boolean running = true;
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(128);
+    private final Thread writerThread;
+
+    private static final GameEvent[] EVENTS = GameEvent.values();
+
+    // Capacity is rounded up to a power of two
+    public EventLog(LogLevel level, Writer out, int capacity) {
+        this.ring = new MpscRing(capacity);
+        int size = ring.getCapacity();
+        this.type = new byte[size];
+        this.tick = new int[size];
+        this.entityId = new int[size];
+        this.x = new float[size];
+        this.y = new float[size];
+        this.value1 = new float[size];
+        this.value2 = new float[size];
+        this.threshold = level.ordinal();
+        this.out = out;
+
+        writerThread = new Thread(this::drainLoop, "event-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public boolean isEnabled(GameEvent event) {
+        return event.getLevel().ordinal() >= threshold;
+    }
+
+    public void setLevel(LogLevel level) {
+        this.threshold = level.ordinal();
+    }
+
+    public void log(GameEvent event, int tick, int entityId, float x, float y) {
+        log(event, tick, entityId, x, y, 0, 0);
+    }
+
+    public void log(GameEvent event, int tick, int entityId, float x, float y, float value1, float value2) {
+        if (!isEnabled(event)) {
+            return;
+        }
+
+        long sequence = ring.claim();
+        if (sequence < 0) {
+            return;
+        }
+
+        int index = ring.index(sequence);
+        this.type[index] = (byte) event.ordinal();
+        this.tick[index] = tick;
+        this.entityId[index] = entityId;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.value1[index] = value1;
+        this.value2[index] = value2;
+        ring.publish(sequence);
+    }
+
+    // Events lost because the ring was full
+    public long getDroppedCount() {
+        return ring.getDroppedCount();
+    }
+
+    // Stops the writer after it has written everything logged so far
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            while (running) {
+                if (drainBatch() == 0) {
+                    out.flush();
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+            while (drainBatch() > 0) {
+                // Write whatever was logged before close()
+            }
+
+            long lost = ring.getDroppedCount();
+            if (lost > 0) {
+                out.write("[event log] dropped " + lost + " events because the ring buffer was full\n");
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Writes up to one batch of published events and returns how many were written
+    private int drainBatch() throws IOException {
+        int written = 0;
+        long sequence = ring.getReadSequence();
+        while (written < BATCH_SIZE && ring.isPublished(sequence)) {
+            format(ring.index(sequence));
+            sequence++;
+            written++;
+        }
+        // Free the slots for producers only once they have been read
+        ring.release(sequence);
+        return written;
+    }
+
+    private void format(int index) throws IOException {
+        GameEvent event = EVENTS[type[index]];
+        line.setLength(0);
+        line.append("[tick ").append(tick[index]).append("] ")
+                .append(event.getLevel()).append(' ')
+                .append(event.getLabel());
+        if (entityId[index] >= 0) {
+            // Handle index, then how many times the handle has been reused
+            int id = entityId[index];
+            line.append(" #").append(id & ((1 << EntityStore.INDEX_BITS) - 1))
+                    .append(':').append(id >>> EntityStore.INDEX_BITS);
+        }
+        line.append(" at (").append(x[index]).append(", ").append(y[index]).append(')');
+        if (event == GameEvent.DAMAGE) {
+            line.append(": ").append(value1[index]).append(" damage, ").append(value2[index]).append(" health left");
+        }
+        line.append('\n');
+        out.append(line);
+    }
+}
@@ -0,0 +1,28 @@
+package org.chrisgruber.log;
+
+// Typed game events. Each event carries the same primitive fields (tick, entity id, x, y and two
+// values whose meaning depends on the type), so they fit in fixed ring buffer slots.
+public enum GameEvent {
+    // value1 = damage dealt, value2 = health remaining
+    DAMAGE(LogLevel.DEBUG, "damage"),
+    KILL(LogLevel.INFO, "kill"),
+    SPAWN(LogLevel.INFO, "spawn"),
+    PLACEMENT(LogLevel.INFO, "placement"),
+    PLACEMENT_REJECTED(LogLevel.WARN, "placement rejected");
+
+    private final LogLevel level;
+    private final String label;
+
+    GameEvent(LogLevel level, String label) {
+        this.level = level;
+        this.label = label;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
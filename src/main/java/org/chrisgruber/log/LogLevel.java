@@ -0,0 +1,9 @@
+package org.chrisgruber.log;
+
+// Ordered from most to least verbose; OFF drops everything
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    OFF
+}
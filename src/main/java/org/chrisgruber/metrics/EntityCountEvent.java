@@ -0,0 +1,24 @@
+package org.chrisgruber.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.chrisgruber.EntityCount")
+@Label("Entity Count")
+@Category("Invasion Defense")
+@StackTrace(false)
+@Description("Entities by kind at the end of a metrics window")
+class EntityCountEvent extends Event {
+    @Label("Ships")
+    int ships;
+
+    @Label("Towers")
+    int towers;
+
+    @Label("Projectiles")
+    int projectiles;
+}
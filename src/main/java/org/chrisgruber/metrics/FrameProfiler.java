@@ -0,0 +1,146 @@
+package org.chrisgruber.metrics;
+
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// Collects per-phase latency histograms and entity counts over fixed windows of wall time.
+// Timing a phase is two System.nanoTime calls and a histogram increment. When a window closes
+// its percentiles are kept for the overlay, written to the optional MetricsWriter and emitted
+// as JFR events, and the histograms start over. Meant to be used from one thread.
+public class FrameProfiler {
+    private static final Phase[] PHASES = Phase.values();
+    private static final EntityKind[] KINDS = EntityKind.values();
+
+    private final long windowNanos;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private long windowStart = System.nanoTime();
+
+    // Latest entity counts by kind
+    private final int[] entityCounts = new int[KINDS.length];
+
+    // Results of the last completed window
+    private final long[] windowCount = new long[PHASES.length];
+    private final long[] windowP50 = new long[PHASES.length];
+    private final long[] windowP99 = new long[PHASES.length];
+    private final long[] windowMax = new long[PHASES.length];
+    private final int[] windowEntityCounts = new int[KINDS.length];
+    private double windowSeconds = 0;
+    private long windowsClosed = 0;
+
+    private MetricsWriter writer;
+
+    public FrameProfiler(double windowSeconds) {
+        this.windowNanos = (long) (windowSeconds * 1e9);
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void setWriter(MetricsWriter writer) {
+        this.writer = writer;
+    }
+
+    public long begin() {
+        return System.nanoTime();
+    }
+
+    // Records the time since begin() and returns the current time, so phases can be chained
+    public long end(Phase phase, long begin) {
+        long now = System.nanoTime();
+        histograms[phase.ordinal()].record(now - begin);
+        return now;
+    }
+
+    public void sampleEntities(EntityStore store) {
+        for (EntityKind kind : KINDS) {
+            entityCounts[kind.ordinal()] = store.size(kind);
+        }
+    }
+
+    // Call once per frame or tick. Returns true when this call closed a window.
+    public boolean endFrame() {
+        long now = System.nanoTime();
+        if (now - windowStart < windowNanos) {
+            return false;
+        }
+
+        windowSeconds = (now - windowStart) / 1e9;
+        for (Phase phase : PHASES) {
+            LatencyHistogram histogram = histograms[phase.ordinal()];
+            windowCount[phase.ordinal()] = histogram.getCount();
+            windowP50[phase.ordinal()] = histogram.getPercentile(0.50);
+            windowP99[phase.ordinal()] = histogram.getPercentile(0.99);
+            windowMax[phase.ordinal()] = histogram.getMax();
+            histogram.reset();
+        }
+        System.arraycopy(entityCounts, 0, windowEntityCounts, 0, entityCounts.length);
+        windowStart = now;
+        windowsClosed++;
+
+        emitJfrEvents();
+        if (writer != null) {
+            try {
+                writer.write(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return true;
+    }
+
+    // Accessors for the last completed window, durations in nanoseconds
+
+    public long getWindowsClosed() {
+        return windowsClosed;
+    }
+
+    public double getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public long getCount(Phase phase) {
+        return windowCount[phase.ordinal()];
+    }
+
+    public long getP50(Phase phase) {
+        return windowP50[phase.ordinal()];
+    }
+
+    public long getP99(Phase phase) {
+        return windowP99[phase.ordinal()];
+    }
+
+    public long getMax(Phase phase) {
+        return windowMax[phase.ordinal()];
+    }
+
+    public int getEntityCount(EntityKind kind) {
+        return windowEntityCounts[kind.ordinal()];
+    }
+
+    private void emitJfrEvents() {
+        for (Phase phase : PHASES) {
+            PhaseStatsEvent event = new PhaseStatsEvent();
+            if (!event.shouldCommit()) {
+                return;
+            }
+            event.phase = phase.getLabel();
+            event.count = getCount(phase);
+            event.p50 = getP50(phase);
+            event.p99 = getP99(phase);
+            event.max = getMax(phase);
+            event.commit();
+        }
+
+        EntityCountEvent counts = new EntityCountEvent();
+        if (counts.shouldCommit()) {
+            counts.ships = getEntityCount(EntityKind.SHIP);
+            counts.towers = getEntityCount(EntityKind.TOWER);
+            counts.projectiles = getEntityCount(EntityKind.PROJECTILE);
+            counts.commit();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.chrisgruber.metrics;
+
+import org.chrisgruber.input.InputEvent;
+
+// Latency of each kind of input, split into the time an event waited in the input queue until
+// the game applied it at a tick boundary, and the time from then until the frame showing its
+// effect was handed to the display (buffer swap returned). Accumulates for the whole session.
+//
+// Input times are taken when GLFW delivers the event to its callback, during glfwPollEvents,
+// since GLFW does not report when the OS received it; time spent before the poll is not seen.
+public class InputLatency {
+    private static final InputEvent[] EVENTS = InputEvent.values();
+
+    private final LatencyHistogram[] queued = new LatencyHistogram[EVENTS.length];
+    private final LatencyHistogram[] presented = new LatencyHistogram[EVENTS.length];
+    private final LatencyHistogram[] total = new LatencyHistogram[EVENTS.length];
+
+    public InputLatency() {
+        for (int i = 0; i < EVENTS.length; i++) {
+            queued[i] = new LatencyHistogram();
+            presented[i] = new LatencyHistogram();
+            total[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(InputEvent event, long inputNanos, long appliedNanos, long presentedNanos) {
+        int i = event.ordinal();
+        queued[i].record(appliedNanos - inputNanos);
+        presented[i].record(presentedNanos - appliedNanos);
+        total[i].record(presentedNanos - inputNanos);
+    }
+
+    public LatencyHistogram getQueued(InputEvent event) {
+        return queued[event.ordinal()];
+    }
+
+    public LatencyHistogram getPresented(InputEvent event) {
+        return presented[event.ordinal()];
+    }
+
+    public LatencyHistogram getTotal(InputEvent event) {
+        return total[event.ordinal()];
+    }
+
+    // One line per kind of input seen, in milliseconds
+    public String summary() {
+        StringBuilder out = new StringBuilder();
+        for (InputEvent event : EVENTS) {
+            int i = event.ordinal();
+            if (total[i].getCount() == 0) continue;
+            out.append(String.format("%-12s %6d events: input to tick p50 %.2f p99 %.2f, tick to display p50 %.2f p99 %.2f,"
+                            + " total p50 %.2f p99 %.2f max %.2f ms%n",
+                    event, total[i].getCount(),
+                    queued[i].getPercentile(0.50) / 1e6, queued[i].getPercentile(0.99) / 1e6,
+                    presented[i].getPercentile(0.50) / 1e6, presented[i].getPercentile(0.99) / 1e6,
+                    total[i].getPercentile(0.50) / 1e6, total[i].getPercentile(0.99) / 1e6,
+                    total[i].getMax() / 1e6));
+        }
+        return out.toString();
+    }
+}
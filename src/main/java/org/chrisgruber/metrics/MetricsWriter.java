@@ -0,0 +1,102 @@
+package org.chrisgruber.metrics;
+
+import org.chrisgruber.entity.EntityKind;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+// Appends one record per profiler window to a file: CSV for a ".csv" path, otherwise JSON lines.
+// Durations are written in microseconds.
+public class MetricsWriter implements AutoCloseable {
+    private static final Phase[] PHASES = Phase.values();
+    private static final EntityKind[] KINDS = EntityKind.values();
+
+    private final BufferedWriter out;
+    private final boolean csv;
+    private final StringBuilder line = new StringBuilder(1024);
+    private double elapsedSeconds = 0;
+
+    public MetricsWriter(Path path) throws IOException {
+        this.out = Files.newBufferedWriter(path);
+        this.csv = path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        if (csv) {
+            writeCsvHeader();
+        }
+    }
+
+    public void write(FrameProfiler profiler) throws IOException {
+        elapsedSeconds += profiler.getWindowSeconds();
+        line.setLength(0);
+        if (csv) {
+            line.append(String.format(Locale.ROOT, "%.3f", elapsedSeconds));
+            for (Phase phase : PHASES) {
+                line.append(',').append(profiler.getCount(phase))
+                        .append(',').append(micros(profiler.getP50(phase)))
+                        .append(',').append(micros(profiler.getP99(phase)))
+                        .append(',').append(micros(profiler.getMax(phase)));
+            }
+            for (EntityKind kind : KINDS) {
+                line.append(',').append(profiler.getEntityCount(kind));
+            }
+        } else {
+            line.append("{\"time\":").append(String.format(Locale.ROOT, "%.3f", elapsedSeconds));
+            line.append(",\"phases\":{");
+            for (Phase phase : PHASES) {
+                if (phase.ordinal() > 0) {
+                    line.append(',');
+                }
+                line.append('"').append(key(phase)).append("\":{")
+                        .append("\"count\":").append(profiler.getCount(phase))
+                        .append(",\"p50\":").append(micros(profiler.getP50(phase)))
+                        .append(",\"p99\":").append(micros(profiler.getP99(phase)))
+                        .append(",\"max\":").append(micros(profiler.getMax(phase)))
+                        .append('}');
+            }
+            line.append("},\"entities\":{");
+            for (EntityKind kind : KINDS) {
+                if (kind.ordinal() > 0) {
+                    line.append(',');
+                }
+                line.append('"').append(kind.name().toLowerCase(Locale.ROOT)).append("\":")
+                        .append(profiler.getEntityCount(kind));
+            }
+            line.append("}}");
+        }
+        line.append('\n');
+        out.append(line);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeCsvHeader() throws IOException {
+        line.setLength(0);
+        line.append("time_s");
+        for (Phase phase : PHASES) {
+            String key = key(phase);
+            line.append(',').append(key).append("_count")
+                    .append(',').append(key).append("_p50_us")
+                    .append(',').append(key).append("_p99_us")
+                    .append(',').append(key).append("_max_us");
+        }
+        for (EntityKind kind : KINDS) {
+            line.append(',').append(kind.name().toLowerCase(Locale.ROOT)).append('s');
+        }
+        line.append('\n');
+        out.append(line);
+    }
+
+    private static String key(Phase phase) {
+        return phase.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+    }
+}
@@ -0,0 +1,27 @@
+package org.chrisgruber.metrics;
+
+// Timed sections of a frame. Simulation phases are recorded once per tick, so a frame that runs
+// several ticks contributes several samples.
+public enum Phase {
+    INPUT("input"),
+    PREPARE("prepare"),
+    NAVIGATION("navigation"),
+    SPAWN("spawn"),
+    ENTITY_UPDATE("entity update"),
+    COLLISIONS("collisions"),
+    COMPACT("compact"),
+    RENDER_ISLAND("render island"),
+    RENDER_ENTITIES("render entities"),
+    SWAP("swap"),
+    FRAME("frame");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,35 @@
+package org.chrisgruber.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One per phase per metrics window, so a JFR recording shows frame timing without a profiler
+@Name("org.chrisgruber.PhaseStats")
+@Label("Phase Timing")
+@Category("Invasion Defense")
+@StackTrace(false)
+@Description("Latency of one frame phase over the last metrics window")
+class PhaseStatsEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Samples")
+    long count;
+
+    @Label("p50")
+    @Timespan(Timespan.NANOSECONDS)
+    long p50;
+
+    @Label("p99")
+    @Timespan(Timespan.NANOSECONDS)
+    long p99;
+
+    @Label("Max")
+    @Timespan(Timespan.NANOSECONDS)
+    long max;
+}
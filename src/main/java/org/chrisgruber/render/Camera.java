@@ -0,0 +1,111 @@
+package org.chrisgruber.render;
+
+// 2D view onto the world: a center point and how many world units are visible above and below
+// it. The visible width follows the window's aspect ratio, so the world is never stretched.
+// Converts window coordinates (pixels, y down) to world coordinates and gives the visible
+// rectangle for culling. Plain Java; GLSpriteRenderer turns it into the shader transform.
+public final class Camera {
+    private static final float MIN_HALF_HEIGHT = 0.05f;
+    private static final float MAX_HALF_HEIGHT = 1.2f;
+
+    private float centerX = 0;
+    private float centerY = 0;
+    private float halfHeight = 1.0f;
+    private int viewportWidth;
+    private int viewportHeight;
+
+    // The center is kept inside these bounds
+    private float boundsMinX = -1, boundsMinY = -1, boundsMaxX = 1, boundsMaxY = 1;
+
+    public Camera(int viewportWidth, int viewportHeight) {
+        setViewport(viewportWidth, viewportHeight);
+    }
+
+    public void setViewport(int width, int height) {
+        // A minimized window reports 0x0; keep the last usable size
+        if (width > 0 && height > 0) {
+            this.viewportWidth = width;
+            this.viewportHeight = height;
+        }
+    }
+
+    public void setBounds(float minX, float minY, float maxX, float maxY) {
+        this.boundsMinX = minX;
+        this.boundsMinY = minY;
+        this.boundsMaxX = maxX;
+        this.boundsMaxY = maxY;
+        clampCenter();
+    }
+
+    // Moves the view by a distance in world units
+    public void pan(float dx, float dy) {
+        centerX += dx;
+        centerY += dy;
+        clampCenter();
+    }
+
+    // Scales the visible area by factor (below 1 zooms in), keeping the world point under the
+    // given window position where it is
+    public void zoom(float factor, double screenX, double screenY) {
+        float anchorX = screenToWorldX(screenX);
+        float anchorY = screenToWorldY(screenY);
+
+        float newHalfHeight = Math.max(MIN_HALF_HEIGHT, Math.min(MAX_HALF_HEIGHT, halfHeight * factor));
+        float applied = newHalfHeight / halfHeight;
+        halfHeight = newHalfHeight;
+
+        centerX = anchorX + (centerX - anchorX) * applied;
+        centerY = anchorY + (centerY - anchorY) * applied;
+        clampCenter();
+    }
+
+    public float screenToWorldX(double screenX) {
+        return centerX + (float) (screenX / viewportWidth * 2 - 1) * getHalfWidth();
+    }
+
+    public float screenToWorldY(double screenY) {
+        return centerY + (float) (1 - screenY / viewportHeight * 2) * halfHeight;
+    }
+
+    // True if the world-space rectangle overlaps the view
+    public boolean isVisible(float minX, float minY, float maxX, float maxY) {
+        return maxX >= getMinX() && minX <= getMaxX() && maxY >= getMinY() && minY <= getMaxY();
+    }
+
+    public float getCenterX() {
+        return centerX;
+    }
+
+    public float getCenterY() {
+        return centerY;
+    }
+
+    public float getHalfHeight() {
+        return halfHeight;
+    }
+
+    public float getHalfWidth() {
+        return halfHeight * viewportWidth / viewportHeight;
+    }
+
+    public float getMinX() {
+        return centerX - getHalfWidth();
+    }
+
+    public float getMaxX() {
+        return centerX + getHalfWidth();
+    }
+
+    public float getMinY() {
+        return centerY - halfHeight;
+    }
+
+    public float getMaxY() {
+        return centerY + halfHeight;
+    }
+
+    private void clampCenter() {
+        centerX = Math.max(boundsMinX, Math.min(boundsMaxX, centerX));
+        centerY = Math.max(boundsMinY, Math.min(boundsMaxY, centerY));
+    }
+}
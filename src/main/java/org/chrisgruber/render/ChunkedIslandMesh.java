@@ -0,0 +1,89 @@
+package org.chrisgruber.render;
+
+import org.chrisgruber.world.Terrain;
+
+// The island split into square chunks of cells, each greedy-meshed into its own static mesh.
+// Only chunks that overlap the camera's view are drawn, and chunks without land are never
+// drawn at all, so the per-frame cost follows what is on screen rather than the map size.
+// Needs a current OpenGL context.
+public class ChunkedIslandMesh {
+    public static final int CHUNK_CELLS = 32;
+
+    private final IslandMesher mesher = new IslandMesher();
+    private GLStaticMesh[] meshes = new GLStaticMesh[0];
+
+    // World bounds of each chunk: minX, minY, maxX, maxY
+    private float[] bounds = new float[0];
+    private int version = -1;
+    private int visibleChunks = 0;
+
+    // Re-meshes every chunk if the map changed since the last call. The batch is scratch space.
+    public void update(Terrain terrain, SpriteBatch batch) {
+        if (terrain.getVersion() == version) {
+            return;
+        }
+
+        int width = terrain.getWidth();
+        int height = terrain.getHeight();
+        int chunksX = (width + CHUNK_CELLS - 1) / CHUNK_CELLS;
+        int chunksY = (height + CHUNK_CELLS - 1) / CHUNK_CELLS;
+        int chunks = chunksX * chunksY;
+        if (meshes.length != chunks) {
+            dispose();
+            meshes = new GLStaticMesh[chunks];
+            for (int i = 0; i < chunks; i++) {
+                meshes[i] = new GLStaticMesh();
+            }
+            bounds = new float[chunks * 4];
+        }
+
+        // Same cell-to-world mapping as IslandMesher
+        int gridSize = Math.max(width, height);
+        float scale = 1.8f / gridSize;
+        for (int cy = 0; cy < chunksY; cy++) {
+            for (int cx = 0; cx < chunksX; cx++) {
+                int chunk = cy * chunksX + cx;
+                int minX = cx * CHUNK_CELLS;
+                int minY = cy * CHUNK_CELLS;
+                int maxX = Math.min(width, minX + CHUNK_CELLS);
+                int maxY = Math.min(height, minY + CHUNK_CELLS);
+
+                batch.clear();
+                mesher.build(terrain, batch, minX, minY, maxX, maxY);
+                meshes[chunk].upload(batch);
+
+                bounds[chunk * 4] = (minX - gridSize/2) * scale;
+                bounds[chunk * 4 + 1] = (minY - gridSize/2) * scale;
+                bounds[chunk * 4 + 2] = (maxX - gridSize/2) * scale;
+                bounds[chunk * 4 + 3] = (maxY - gridSize/2) * scale;
+            }
+        }
+        version = terrain.getVersion();
+    }
+
+    public void draw(GLSpriteRenderer renderer, Camera camera) {
+        visibleChunks = 0;
+        for (int chunk = 0; chunk < meshes.length; chunk++) {
+            GLStaticMesh mesh = meshes[chunk];
+            if (mesh.getVertexCount() == 0) continue;
+
+            int b = chunk * 4;
+            if (camera.isVisible(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3])) {
+                renderer.draw(mesh);
+                visibleChunks++;
+            }
+        }
+    }
+
+    // Chunks drawn by the last draw call
+    public int getVisibleChunks() {
+        return visibleChunks;
+    }
+
+    public void dispose() {
+        for (GLStaticMesh mesh : meshes) {
+            mesh.dispose();
+        }
+        meshes = new GLStaticMesh[0];
+    }
+}
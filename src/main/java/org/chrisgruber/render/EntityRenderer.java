@@ -0,0 +1,166 @@
+package org.chrisgruber.render;
+
+import org.chrisgruber.entity.Entity;
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.entity.Tower;
+import org.chrisgruber.simulation.SpatialIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Turns the entity store into triangles, reading positions straight from the bucket columns.
+// Same shapes and colors the entities used to draw with immediate mode.
+// Positions are blended between the previous and current tick by alpha, so motion stays
+// smooth when the frame rate and the fixed tick rate differ.
+//
+// With a camera, ships and projectiles are gathered from the cells of the simulation's spatial
+// index that overlap the view, so the work follows what is on screen rather than how many
+// entities the world holds. Towers are few and can be placed between ticks, before the index
+// knows about them, so they are always checked one by one.
+public class EntityRenderer {
+    // Screen-space thickness of the tower range outline, about one pixel at 768 px
+    private static final float RANGE_LINE_THICKNESS = 0.003f;
+
+    // The index holds positions from the end of the last tick; widen the query by more than
+    // anything moves in a tick plus the largest drawn shape
+    private static final float INDEX_MARGIN = 0.2f;
+
+    // Visible world rectangle for the current build
+    private float viewMinX, viewMinY, viewMaxX, viewMaxY;
+    private final List<Entity> visible = new ArrayList<>();
+
+    public void build(EntityStore store, SpriteBatch batch, float alpha) {
+        viewMinX = Float.NEGATIVE_INFINITY;
+        viewMinY = Float.NEGATIVE_INFINITY;
+        viewMaxX = Float.POSITIVE_INFINITY;
+        viewMaxY = Float.POSITIVE_INFINITY;
+
+        buildTowers(store.getBucket(EntityKind.TOWER), batch);
+        EntityStore.Bucket ships = store.getBucket(EntityKind.SHIP);
+        for (int slot = 0; slot < ships.size(); slot++) {
+            buildShip(ships, slot, batch, alpha);
+        }
+        EntityStore.Bucket projectiles = store.getBucket(EntityKind.PROJECTILE);
+        for (int slot = 0; slot < projectiles.size(); slot++) {
+            buildProjectile(projectiles, slot, batch, alpha);
+        }
+    }
+
+    public void build(EntityStore store, SpatialIndex index, SpriteBatch batch, float alpha, Camera camera) {
+        viewMinX = camera.getMinX();
+        viewMinY = camera.getMinY();
+        viewMaxX = camera.getMaxX();
+        viewMaxY = camera.getMaxY();
+
+        buildTowers(store.getBucket(EntityKind.TOWER), batch);
+
+        EntityStore.Bucket ships = store.getBucket(EntityKind.SHIP);
+        queryView(index, EntityKind.SHIP);
+        for (int i = 0; i < visible.size(); i++) {
+            buildShip(ships, visible.get(i).getSlot(), batch, alpha);
+        }
+
+        EntityStore.Bucket projectiles = store.getBucket(EntityKind.PROJECTILE);
+        queryView(index, EntityKind.PROJECTILE);
+        for (int i = 0; i < visible.size(); i++) {
+            buildProjectile(projectiles, visible.get(i).getSlot(), batch, alpha);
+        }
+        visible.clear();
+    }
+
+    private void queryView(SpatialIndex index, EntityKind kind) {
+        visible.clear();
+        index.queryOverlaps(viewMinX - INDEX_MARGIN, viewMinY - INDEX_MARGIN,
+                viewMaxX + INDEX_MARGIN, viewMaxY + INDEX_MARGIN, kind, visible);
+    }
+
+    // True if a shape reaching radius from (x, y) can be on screen
+    private boolean inView(float x, float y, float radius) {
+        return x + radius >= viewMinX && x - radius <= viewMaxX
+                && y + radius >= viewMinY && y - radius <= viewMaxY;
+    }
+
+    private static float lerp(float from, float to, float alpha) {
+        return from + (to - from) * alpha;
+    }
+
+    private void buildShip(EntityStore.Bucket ships, int slot, SpriteBatch batch, float alpha) {
+        float x = lerp(ships.getPrevX()[slot], ships.getX()[slot], alpha);
+        float y = lerp(ships.getPrevY()[slot], ships.getY()[slot], alpha);
+        float width = ships.getWidth()[slot];
+        float height = ships.getHeight()[slot];
+        if (!inView(x, y, Math.max(width, height))) return;
+
+        // Scales size of the ship
+        float scaleFactor = 0.7f; // Reduce size by 30%
+        float scaledWidth = width * scaleFactor;
+        float scaledHeight = height * scaleFactor;
+
+        // Ship pointing in the direction of movement
+        float angle = (float) Math.atan2(ships.getVy()[slot], ships.getVx()[slot]);
+        float x1 = x + (float) Math.cos(angle) * scaledWidth;
+        float y1 = y + (float) Math.sin(angle) * scaledHeight;
+        float x2 = x + (float) Math.cos(angle + 2.5f) * scaledWidth;
+        float y2 = y + (float) Math.sin(angle + 2.5f) * scaledHeight;
+        float x3 = x + (float) Math.cos(angle - 2.5f) * scaledWidth;
+        float y3 = y + (float) Math.sin(angle - 2.5f) * scaledHeight;
+
+        // Red triangle
+        batch.triangle(x1, y1, x2, y2, x3, y3, 0.9f, 0.1f, 0.1f, 1.0f);
+    }
+
+    private void buildTowers(EntityStore.Bucket towers, SpriteBatch batch) {
+        float[] xs = towers.getX();
+        float[] ys = towers.getY();
+        float[] widths = towers.getWidth();
+        float[] heights = towers.getHeight();
+
+        for (int slot = 0; slot < towers.size(); slot++) {
+            Tower tower = (Tower) towers.get(slot);
+            float x = xs[slot];
+            float y = ys[slot];
+            float width = widths[slot];
+            float height = heights[slot];
+
+            // The range ring is the widest part
+            if (!inView(x, y, Math.max(tower.getAttackRange(), width + height))) continue;
+
+            // Draw the tower as a small grey square
+            batch.rect(x - width/2, y - height/2, x + width/2, y + height/2, 0.7f, 0.7f, 0.7f, 1.0f);
+
+            // Draw the attack range (for debugging)
+            batch.ring(x, y, tower.getAttackRange(), RANGE_LINE_THICKNESS, 1.0f, 1.0f, 1.0f, 1.0f);
+
+            // Show cooldown indicator in red
+            if (!tower.canAttack()) {
+                float cooldownPercentage = tower.getCooldownFraction();
+                batch.rect(x - width/2, y + height/2 + 0.03f,
+                        x - width/2 + width * (1 - cooldownPercentage), y + height/2 + 0.05f,
+                        0.8f, 0.2f, 0.2f, 1.0f);
+            }
+        }
+    }
+
+    private void buildProjectile(EntityStore.Bucket projectiles, int slot, SpriteBatch batch, float alpha) {
+        float x = lerp(projectiles.getPrevX()[slot], projectiles.getX()[slot], alpha);
+        float y = lerp(projectiles.getPrevY()[slot], projectiles.getY()[slot], alpha);
+        float width = projectiles.getWidth()[slot];
+        if (!inView(x, y, width * 1.5f)) return;
+
+        // Green energy ball for player towers, red for enemies
+        if ((projectiles.getFlags()[slot] & EntityStore.FLAG_FRIENDLY) != 0) {
+            energyBall(batch, x, y, width, 0.2f, 0.9f, 0.3f);
+        } else {
+            energyBall(batch, x, y, width, 0.9f, 0.2f, 0.2f);
+        }
+    }
+
+    private void energyBall(SpriteBatch batch, float x, float y, float width, float r, float g, float b) {
+        // Outer glow fading to a transparent edge
+        batch.circle(x, y, width * 1.5f, r, g, b, 0.9f, r, g, b, 0.0f);
+
+        // Inner solid part with a brighter center
+        batch.circle(x, y, width / 2, r * 1.2f, g * 1.2f, b * 1.2f, 0.9f, r, g, b, 0.8f);
+    }
+}
@@ -0,0 +1,159 @@
+package org.chrisgruber.render;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL33C.*;
+
+// Uploads a SpriteBatch into a streaming VBO and draws it with a single glDrawArrays call.
+// Also draws GLStaticMesh geometry with the same shader. Needs a current OpenGL 3.3 core context.
+// Vertices are in world units; the view set from a Camera scales and offsets them into clip space.
+public class GLSpriteRenderer {
+    private static final String VERTEX_SHADER = """
+            #version 330 core
+            layout(location = 0) in vec2 position;
+            layout(location = 1) in vec4 color;
+            uniform vec4 view; // scale x, scale y, offset x, offset y
+            out vec4 vertexColor;
+            void main() {
+                vertexColor = color;
+                gl_Position = vec4(position * view.xy + view.zw, 0.0, 1.0);
+            }
+            """;
+
+    private static final String FRAGMENT_SHADER = """
+            #version 330 core
+            in vec4 vertexColor;
+            out vec4 fragColor;
+            void main() {
+                fragColor = vertexColor;
+            }
+            """;
+
+    private final int program;
+    private final int viewUniform;
+    private float scaleX = 1, scaleY = 1, offsetX = 0, offsetY = 0;
+    private final int vao;
+    private final int vbo;
+
+    // Direct staging buffer for the upload, grown when a frame needs more room
+    private FloatBuffer uploadBuffer;
+
+    public GLSpriteRenderer() {
+        program = createProgram();
+        viewUniform = glGetUniformLocation(program, "view");
+
+        vao = glGenVertexArrays();
+        vbo = glGenBuffers();
+        glBindVertexArray(vao);
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        configureVertexLayout();
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+        uploadBuffer = MemoryUtil.memAllocFloat(4096 * SpriteBatch.FLOATS_PER_VERTEX);
+    }
+
+    // Draws what the camera sees from here on
+    public void setView(Camera camera) {
+        scaleX = 1 / camera.getHalfWidth();
+        scaleY = 1 / camera.getHalfHeight();
+        offsetX = -camera.getCenterX() * scaleX;
+        offsetY = -camera.getCenterY() * scaleY;
+    }
+
+    // Vertices are clip-space coordinates from here on, for overlays fixed to the screen
+    public void setScreenView() {
+        scaleX = 1;
+        scaleY = 1;
+        offsetX = 0;
+        offsetY = 0;
+    }
+
+    public void draw(SpriteBatch batch) {
+        int floatCount = batch.getFloatCount();
+        if (floatCount == 0) {
+            return;
+        }
+
+        if (uploadBuffer.capacity() < floatCount) {
+            MemoryUtil.memFree(uploadBuffer);
+            uploadBuffer = MemoryUtil.memAllocFloat(Math.max(floatCount, uploadBuffer.capacity() * 2));
+        }
+        uploadBuffer.clear();
+        uploadBuffer.put(batch.getVertices(), 0, floatCount).flip();
+
+        glUseProgram(program);
+        glUniform4f(viewUniform, scaleX, scaleY, offsetX, offsetY);
+        glBindVertexArray(vao);
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+
+        // Orphan the previous frame's storage so the driver does not have to wait on it
+        glBufferData(GL_ARRAY_BUFFER, (long) floatCount * Float.BYTES, GL_STREAM_DRAW);
+        glBufferSubData(GL_ARRAY_BUFFER, 0, uploadBuffer);
+
+        glEnable(GL_BLEND);
+        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        glDrawArrays(GL_TRIANGLES, 0, batch.getVertexCount());
+
+        glBindVertexArray(0);
+        glUseProgram(0);
+    }
+
+    public void draw(GLStaticMesh mesh) {
+        if (mesh.getVertexCount() == 0) {
+            return;
+        }
+
+        glUseProgram(program);
+        glUniform4f(viewUniform, scaleX, scaleY, offsetX, offsetY);
+        glBindVertexArray(mesh.getVao());
+        glDrawArrays(GL_TRIANGLES, 0, mesh.getVertexCount());
+        glBindVertexArray(0);
+        glUseProgram(0);
+    }
+
+    // Position then RGBA color, for the VAO and VBO currently bound
+    static void configureVertexLayout() {
+        int stride = SpriteBatch.FLOATS_PER_VERTEX * Float.BYTES;
+        glEnableVertexAttribArray(0);
+        glVertexAttribPointer(0, 2, GL_FLOAT, false, stride, 0);
+        glEnableVertexAttribArray(1);
+        glVertexAttribPointer(1, 4, GL_FLOAT, false, stride, 2L * Float.BYTES);
+    }
+
+    public void dispose() {
+        glDeleteBuffers(vbo);
+        glDeleteVertexArrays(vao);
+        glDeleteProgram(program);
+        MemoryUtil.memFree(uploadBuffer);
+    }
+
+    private static int createProgram() {
+        int vertexShader = compileShader(GL_VERTEX_SHADER, VERTEX_SHADER);
+        int fragmentShader = compileShader(GL_FRAGMENT_SHADER, FRAGMENT_SHADER);
+
+        int program = glCreateProgram();
+        glAttachShader(program, vertexShader);
+        glAttachShader(program, fragmentShader);
+        glLinkProgram(program);
+        if (glGetProgrami(program, GL_LINK_STATUS) == GL_FALSE) {
+            throw new RuntimeException("Failed to link sprite shader: " + glGetProgramInfoLog(program));
+        }
+
+        glDeleteShader(vertexShader);
+        glDeleteShader(fragmentShader);
+        return program;
+    }
+
+    private static int compileShader(int type, String source) {
+        int shader = glCreateShader(type);
+        glShaderSource(shader, source);
+        glCompileShader(shader);
+        if (glGetShaderi(shader, GL_COMPILE_STATUS) == GL_FALSE) {
+            throw new RuntimeException("Failed to compile sprite shader: " + glGetShaderInfoLog(shader));
+        }
+        return shader;
+    }
+}
@@ -0,0 +1,52 @@
+package org.chrisgruber.render;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL33C.*;
+
+// Geometry uploaded once with GL_STATIC_DRAW and drawn by GLSpriteRenderer until replaced.
+// Uses the same vertex layout as SpriteBatch.
+public class GLStaticMesh {
+    private final int vao;
+    private final int vbo;
+    private int vertexCount = 0;
+
+    public GLStaticMesh() {
+        vao = glGenVertexArrays();
+        vbo = glGenBuffers();
+        glBindVertexArray(vao);
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        GLSpriteRenderer.configureVertexLayout();
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    public void upload(SpriteBatch batch) {
+        int floatCount = batch.getFloatCount();
+        FloatBuffer buffer = MemoryUtil.memAllocFloat(Math.max(1, floatCount));
+        try {
+            buffer.put(batch.getVertices(), 0, floatCount).flip();
+            glBindBuffer(GL_ARRAY_BUFFER, vbo);
+            glBufferData(GL_ARRAY_BUFFER, buffer, GL_STATIC_DRAW);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        } finally {
+            MemoryUtil.memFree(buffer);
+        }
+        vertexCount = batch.getVertexCount();
+    }
+
+    int getVao() {
+        return vao;
+    }
+
+    int getVertexCount() {
+        return vertexCount;
+    }
+
+    public void dispose() {
+        glDeleteBuffers(vbo);
+        glDeleteVertexArrays(vao);
+    }
+}
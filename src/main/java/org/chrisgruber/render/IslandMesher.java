@@ -0,0 +1,74 @@
+package org.chrisgruber.render;
+
+import org.chrisgruber.world.Terrain;
+
+// Greedy meshing of the island: runs of land cells are merged into the largest rectangles
+// that fit, so a mostly solid island becomes a handful of quads instead of one per cell.
+// Plain Java; the result goes into a SpriteBatch that is uploaded once as static geometry.
+public class IslandMesher {
+    // Returns the number of quads added to the batch
+    public int build(Terrain terrain, SpriteBatch batch) {
+        return build(terrain, batch, 0, 0, terrain.getWidth(), terrain.getHeight());
+    }
+
+    // Meshes only cells [minX, maxX) x [minY, maxY), so a large map can be split into chunks
+    // that are culled separately. Quads never cross the region's edges.
+    public int build(Terrain terrain, SpriteBatch batch, int minX, int minY, int maxX, int maxY) {
+        int regionHeight = maxY - minY;
+        boolean[] used = new boolean[(maxX - minX) * regionHeight];
+
+        // Scale to fit the grid in the OpenGL coordinate system (-1 to 1)
+        int gridSize = Math.max(terrain.getWidth(), terrain.getHeight());
+        float scale = 1.8f / gridSize;
+
+        int quads = 0;
+        for (int x = minX; x < maxX; x++) {
+            int columnOffset = (x - minX) * regionHeight - minY;
+            for (int y = minY; y < maxY; y++) {
+                if (!terrain.isLand(x, y) || used[columnOffset + y]) continue;
+
+                // Grow the run along y
+                int endY = y + 1;
+                while (endY < maxY && terrain.isLand(x, endY) && !used[columnOffset + endY]) {
+                    endY++;
+                }
+
+                // Grow the run into following columns while the whole span is free land
+                int endX = x + 1;
+                while (endX < maxX && isFreeSpan(terrain, endX, used, (endX - minX) * regionHeight - minY, y, endY)) {
+                    endX++;
+                }
+
+                for (int ux = x + 1; ux < endX; ux++) {
+                    int offset = (ux - minX) * regionHeight - minY;
+                    for (int uy = y; uy < endY; uy++) {
+                        used[offset + uy] = true;
+                    }
+                }
+
+                float worldX1 = (x - gridSize/2) * scale;
+                float worldY1 = (y - gridSize/2) * scale;
+                float worldX2 = (endX - gridSize/2) * scale;
+                float worldY2 = (endY - gridSize/2) * scale;
+
+                // Land color (green)
+                batch.rect(worldX1, worldY1, worldX2, worldY2, 0.2f, 0.6f, 0.2f, 1.0f);
+                quads++;
+
+                // The rest of this run is covered
+                y = endY - 1;
+            }
+        }
+        return quads;
+    }
+
+    private static boolean isFreeSpan(Terrain terrain, int x, boolean[] used, int columnOffset,
+                                      int startY, int endY) {
+        for (int y = startY; y < endY; y++) {
+            if (!terrain.isLand(x, y) || used[columnOffset + y]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package org.chrisgruber.render;
+
+import org.chrisgruber.metrics.FrameProfiler;
+import org.chrisgruber.metrics.Phase;
+
+// Draws the profiler's last window as one row of bars per phase in the top-left corner.
+// The grey bar is a 60 Hz frame budget; green is the median and orange the 99th percentile,
+// both clamped to twice the budget. There is no font, so the numbers go in the window title.
+public class MetricsOverlay {
+    private static final long BUDGET_NANOS = 16_666_667;
+    private static final float LEFT = -0.98f;
+    private static final float TOP = 0.97f;
+    private static final float BUDGET_WIDTH = 0.4f;
+    private static final float ROW_HEIGHT = 0.03f;
+    private static final float BAR_HEIGHT = 0.02f;
+
+    private static final Phase[] PHASES = Phase.values();
+
+    public void build(FrameProfiler profiler, SpriteBatch batch) {
+        for (Phase phase : PHASES) {
+            float top = TOP - phase.ordinal() * ROW_HEIGHT;
+            float bottom = top - BAR_HEIGHT;
+
+            batch.rect(LEFT, bottom, LEFT + BUDGET_WIDTH, top, 0.2f, 0.2f, 0.2f, 1.0f);
+            batch.rect(LEFT, bottom, LEFT + width(profiler.getP99(phase)), top, 1.0f, 0.6f, 0.1f, 1.0f);
+            batch.rect(LEFT, bottom + BAR_HEIGHT / 4, LEFT + width(profiler.getP50(phase)), top - BAR_HEIGHT / 4,
+                    0.2f, 0.9f, 0.3f, 1.0f);
+        }
+    }
+
+    private static float width(long nanos) {
+        return Math.min(2.0f, (float) nanos / BUDGET_NANOS) * BUDGET_WIDTH;
+    }
+}
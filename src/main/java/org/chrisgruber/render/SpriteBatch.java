@@ -0,0 +1,124 @@
+package org.chrisgruber.render;
+
+import java.util.Arrays;
+
+// CPU-side vertex buffer for one frame of 2D geometry. Everything is emitted as colored
+// triangles (x, y, r, g, b, a per vertex) so the whole frame can be drawn with one call.
+// Plain Java with no GL dependency; GLSpriteRenderer uploads the result.
+public class SpriteBatch {
+    public static final int FLOATS_PER_VERTEX = 6;
+
+    // Unit circle points shared by every circle and ring
+    private static final int CIRCLE_SEGMENTS = 12;
+    private static final int RING_SEGMENTS = 20;
+    private static final float[] CIRCLE_COS = unitCircle(CIRCLE_SEGMENTS, true);
+    private static final float[] CIRCLE_SIN = unitCircle(CIRCLE_SEGMENTS, false);
+    private static final float[] RING_COS = unitCircle(RING_SEGMENTS, true);
+    private static final float[] RING_SIN = unitCircle(RING_SEGMENTS, false);
+
+    private float[] vertices;
+    private int floatCount = 0;
+
+    public SpriteBatch() {
+        this(4096);
+    }
+
+    public SpriteBatch(int initialVertexCapacity) {
+        vertices = new float[initialVertexCapacity * FLOATS_PER_VERTEX];
+    }
+
+    public void clear() {
+        floatCount = 0;
+    }
+
+    public float[] getVertices() {
+        return vertices;
+    }
+
+    public int getVertexCount() {
+        return floatCount / FLOATS_PER_VERTEX;
+    }
+
+    public int getFloatCount() {
+        return floatCount;
+    }
+
+    public void triangle(float x1, float y1, float x2, float y2, float x3, float y3,
+                         float r, float g, float b, float a) {
+        ensureCapacity(3);
+        vertex(x1, y1, r, g, b, a);
+        vertex(x2, y2, r, g, b, a);
+        vertex(x3, y3, r, g, b, a);
+    }
+
+    // Axis-aligned rectangle from (x1, y1) to (x2, y2)
+    public void rect(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
+        ensureCapacity(6);
+        vertex(x1, y1, r, g, b, a);
+        vertex(x2, y1, r, g, b, a);
+        vertex(x2, y2, r, g, b, a);
+        vertex(x1, y1, r, g, b, a);
+        vertex(x2, y2, r, g, b, a);
+        vertex(x1, y2, r, g, b, a);
+    }
+
+    // Filled circle as a fan of triangles with separate center and edge colors
+    public void circle(float x, float y, float radius,
+                       float centerR, float centerG, float centerB, float centerA,
+                       float edgeR, float edgeG, float edgeB, float edgeA) {
+        ensureCapacity(CIRCLE_SEGMENTS * 3);
+        for (int i = 0; i < CIRCLE_SEGMENTS; i++) {
+            vertex(x, y, centerR, centerG, centerB, centerA);
+            vertex(x + CIRCLE_COS[i] * radius, y + CIRCLE_SIN[i] * radius, edgeR, edgeG, edgeB, edgeA);
+            vertex(x + CIRCLE_COS[i + 1] * radius, y + CIRCLE_SIN[i + 1] * radius, edgeR, edgeG, edgeB, edgeA);
+        }
+    }
+
+    // Circle outline built from thin quads, replacing GL_LINE_LOOP
+    public void ring(float x, float y, float radius, float thickness, float r, float g, float b, float a) {
+        ensureCapacity(RING_SEGMENTS * 6);
+        float inner = radius - thickness / 2;
+        float outer = radius + thickness / 2;
+        for (int i = 0; i < RING_SEGMENTS; i++) {
+            float ix1 = x + RING_COS[i] * inner, iy1 = y + RING_SIN[i] * inner;
+            float ox1 = x + RING_COS[i] * outer, oy1 = y + RING_SIN[i] * outer;
+            float ix2 = x + RING_COS[i + 1] * inner, iy2 = y + RING_SIN[i + 1] * inner;
+            float ox2 = x + RING_COS[i + 1] * outer, oy2 = y + RING_SIN[i + 1] * outer;
+            vertex(ix1, iy1, r, g, b, a);
+            vertex(ox1, oy1, r, g, b, a);
+            vertex(ox2, oy2, r, g, b, a);
+            vertex(ix1, iy1, r, g, b, a);
+            vertex(ox2, oy2, r, g, b, a);
+            vertex(ix2, iy2, r, g, b, a);
+        }
+    }
+
+    private void vertex(float x, float y, float r, float g, float b, float a) {
+        float[] v = vertices;
+        int i = floatCount;
+        v[i] = x;
+        v[i + 1] = y;
+        v[i + 2] = r;
+        v[i + 3] = g;
+        v[i + 4] = b;
+        v[i + 5] = a;
+        floatCount = i + FLOATS_PER_VERTEX;
+    }
+
+    private void ensureCapacity(int extraVertices) {
+        int needed = floatCount + extraVertices * FLOATS_PER_VERTEX;
+        if (needed > vertices.length) {
+            vertices = Arrays.copyOf(vertices, Math.max(needed, vertices.length * 2));
+        }
+    }
+
+    // Points on the unit circle with the first point repeated at the end
+    private static float[] unitCircle(int segments, boolean cosine) {
+        float[] points = new float[segments + 1];
+        for (int i = 0; i <= segments; i++) {
+            double angle = i * 2 * Math.PI / segments;
+            points[i] = (float) (cosine ? Math.cos(angle) : Math.sin(angle));
+        }
+        return points;
+    }
+}
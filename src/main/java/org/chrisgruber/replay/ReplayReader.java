@@ -0,0 +1,122 @@
+package org.chrisgruber.replay;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads a replay log written by ReplayRecorder, one record at a time.
+//
+// Format, little-endian:
+//   header: int magic "IDRP", short version, int grid size, int tick rate, long seed
+//   record: byte type, varint ticks since the previous record, payload
+//     PLACE_TOWER  float x, float y
+//     SPAWN_ENEMY  (no payload)
+//     END          long checksum of the final state
+public class ReplayReader {
+    static final int MAGIC = 0x50524449; // "IDRP"
+    static final short VERSION = 6;
+
+    public static final byte TYPE_END = 0;
+    public static final byte TYPE_PLACE_TOWER = 1;
+    public static final byte TYPE_SPAWN_ENEMY = 2;
+
+    private final MappedByteBuffer buffer;
+    private final int gridSize;
+    private final int tickRate;
+    private final long seed;
+
+    // The current record
+    private byte type = -1;
+    private int tick = 0;
+    private float x, y;
+    private long checksum;
+
+    private ReplayReader(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.remaining() < 22 || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a replay file");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported replay version: " + version);
+        }
+        this.gridSize = buffer.getInt();
+        this.tickRate = buffer.getInt();
+        this.seed = buffer.getLong();
+    }
+
+    public static ReplayReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new ReplayReader(buffer);
+        }
+    }
+
+    // Moves to the next record. Returns false once the end record has been read.
+    public boolean next() {
+        if (type == TYPE_END) {
+            return false;
+        }
+
+        type = buffer.get();
+        int delta = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            delta |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        tick += delta;
+
+        switch (type) {
+            case TYPE_PLACE_TOWER -> {
+                x = buffer.getFloat();
+                y = buffer.getFloat();
+            }
+            case TYPE_SPAWN_ENEMY -> {
+            }
+            case TYPE_END -> checksum = buffer.getLong();
+            default -> throw new IllegalStateException("Corrupt replay: unknown record type " + type);
+        }
+        return true;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    // Tick the current record applies before
+    public int getTick() {
+        return tick;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+}
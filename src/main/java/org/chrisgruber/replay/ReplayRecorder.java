@@ -0,0 +1,114 @@
+package org.chrisgruber.replay;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Writes a replay log: the seed and settings a session started from, then every input the
+// simulation received, stamped with the tick it was applied before. Records go straight into a
+// memory-mapped region of the file, so recording costs a few stores per input and the OS
+// flushes pages in the background. See ReplayReader for the format.
+public class ReplayRecorder implements AutoCloseable {
+    private static final int INITIAL_MAPPING = 64 * 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int lastTick = 0;
+    private boolean finished = false;
+
+    private ReplayRecorder(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.buffer = map(0, INITIAL_MAPPING);
+    }
+
+    public static ReplayRecorder create(Path path, int gridSize, int tickRate, long seed) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ReplayRecorder recorder = new ReplayRecorder(channel);
+        recorder.buffer.putInt(ReplayReader.MAGIC);
+        recorder.buffer.putShort(ReplayReader.VERSION);
+        recorder.buffer.putInt(gridSize);
+        recorder.buffer.putInt(tickRate);
+        recorder.buffer.putLong(seed);
+        return recorder;
+    }
+
+    public void recordPlaceTower(int tick, float x, float y) {
+        beginRecord(ReplayReader.TYPE_PLACE_TOWER, tick, 8);
+        buffer.putFloat(x);
+        buffer.putFloat(y);
+    }
+
+    public void recordSpawnEnemy(int tick) {
+        beginRecord(ReplayReader.TYPE_SPAWN_ENEMY, tick, 0);
+    }
+
+    // Ends the log with the tick the session stopped at and a checksum of its final state,
+    // which a replay compares against to prove it ran bit-for-bit the same
+    public void finish(int tick, long checksum) {
+        beginRecord(ReplayReader.TYPE_END, tick, 8);
+        buffer.putLong(checksum);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            throw new IllegalStateException("Replay closed without finish()");
+        }
+
+        int length = buffer.position();
+        buffer.force();
+        try {
+            // Drop the unused tail of the mapping
+            channel.truncate(length);
+        } catch (IOException e) {
+            // Windows will not truncate a file that is still mapped; the end record marks the end anyway
+        }
+        channel.close();
+    }
+
+    // Type byte, then the ticks since the previous record as a varint
+    private void beginRecord(byte type, int tick, int payloadBytes) {
+        if (finished) {
+            throw new IllegalStateException("Replay is already finished");
+        }
+        if (tick < lastTick) {
+            throw new IllegalArgumentException("Replay ticks must not go backwards: " + tick + " after " + lastTick);
+        }
+
+        ensureRemaining(1 + 5 + payloadBytes);
+        buffer.put(type);
+        int delta = tick - lastTick;
+        while ((delta & ~0x7F) != 0) {
+            buffer.put((byte) ((delta & 0x7F) | 0x80));
+            delta >>>= 7;
+        }
+        buffer.put((byte) delta);
+        lastTick = tick;
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+
+        // Map a region twice as large and carry on at the same position
+        int position = buffer.position();
+        try {
+            buffer = map(0, Math.max(buffer.capacity() * 2, position + bytes));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to grow replay file", e);
+        }
+        buffer.position(position);
+    }
+
+    private MappedByteBuffer map(long position, int size) throws IOException {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        return mapped;
+    }
+}
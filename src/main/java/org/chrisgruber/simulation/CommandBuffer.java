@@ -0,0 +1,93 @@
+package org.chrisgruber.simulation;
+
+import org.chrisgruber.entity.Entity;
+
+import java.util.Arrays;
+
+// Changes recorded by one chunk of entities during a parallel update phase. Workers only write
+// their own chunk's buffer; Simulation applies the buffers afterwards in chunk order, which is
+// slot order, so the outcome does not depend on how many threads ran the phase.
+// Stored as primitive arrays that are reused every tick.
+public class CommandBuffer {
+    private static final int SPAWN_FLOATS = 7;
+
+    // Projectile spawns: x, y, targetX, targetY, damage, size, speed
+    private float[] spawnData = new float[16 * SPAWN_FLOATS];
+    private boolean[] spawnFriendly = new boolean[16];
+    private Entity[] spawnTarget = new Entity[16];
+    private int spawnCount = 0;
+
+    // Projectile hits: projectile slot and the ship it overlapped when the phase started
+    private int[] hitProjectile = new int[16];
+    private Entity[] hitTarget = new Entity[16];
+    private int hitCount = 0;
+
+    // A homing target makes the projectile follow that ship; null flies straight to the target point
+    public void spawnProjectile(float x, float y, float targetX, float targetY, float damage, float size, float speed,
+                                boolean friendly, Entity homingTarget) {
+        if (spawnCount == spawnFriendly.length) {
+            spawnData = Arrays.copyOf(spawnData, spawnData.length * 2);
+            spawnFriendly = Arrays.copyOf(spawnFriendly, spawnFriendly.length * 2);
+            spawnTarget = Arrays.copyOf(spawnTarget, spawnTarget.length * 2);
+        }
+
+        int offset = spawnCount * SPAWN_FLOATS;
+        spawnData[offset] = x;
+        spawnData[offset + 1] = y;
+        spawnData[offset + 2] = targetX;
+        spawnData[offset + 3] = targetY;
+        spawnData[offset + 4] = damage;
+        spawnData[offset + 5] = size;
+        spawnData[offset + 6] = speed;
+        spawnFriendly[spawnCount] = friendly;
+        spawnTarget[spawnCount] = homingTarget;
+        spawnCount++;
+    }
+
+    public void hit(int projectileSlot, Entity target) {
+        if (hitCount == hitProjectile.length) {
+            hitProjectile = Arrays.copyOf(hitProjectile, hitCount * 2);
+            hitTarget = Arrays.copyOf(hitTarget, hitCount * 2);
+        }
+
+        hitProjectile[hitCount] = projectileSlot;
+        hitTarget[hitCount] = target;
+        hitCount++;
+    }
+
+    public void clear() {
+        // Drop references so removed entities can be collected
+        Arrays.fill(hitTarget, 0, hitCount, null);
+        Arrays.fill(spawnTarget, 0, spawnCount, null);
+        spawnCount = 0;
+        hitCount = 0;
+    }
+
+    int getSpawnCount() {
+        return spawnCount;
+    }
+
+    float getSpawn(int spawn, int field) {
+        return spawnData[spawn * SPAWN_FLOATS + field];
+    }
+
+    boolean isSpawnFriendly(int spawn) {
+        return spawnFriendly[spawn];
+    }
+
+    Entity getSpawnTarget(int spawn) {
+        return spawnTarget[spawn];
+    }
+
+    int getHitCount() {
+        return hitCount;
+    }
+
+    int getHitProjectile(int hit) {
+        return hitProjectile[hit];
+    }
+
+    Entity getHitTarget(int hit) {
+        return hitTarget[hit];
+    }
+}
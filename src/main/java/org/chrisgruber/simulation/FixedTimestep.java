@@ -0,0 +1,56 @@
+package org.chrisgruber.simulation;
+
+// Accumulator for running the simulation at a fixed tick rate regardless of frame rate.
+// Each frame adds its real elapsed time and gets back how many ticks to run; leftover time
+// becomes the interpolation factor for rendering between the last two ticks.
+public class FixedTimestep {
+    private final int tickRate;
+    private final float stepSeconds;
+    private final int maxStepsPerFrame;
+    private double accumulator = 0;
+    private long droppedTicks = 0;
+
+    public FixedTimestep(int tickRate, int maxStepsPerFrame) {
+        if (tickRate <= 0 || maxStepsPerFrame <= 0) {
+            throw new IllegalArgumentException("Tick rate and max steps per frame must be positive");
+        }
+        this.tickRate = tickRate;
+        this.stepSeconds = 1.0f / tickRate;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    // Returns the number of ticks to run for a frame that took frameSeconds.
+    // If the simulation has fallen too far behind, the backlog beyond the cap is dropped
+    // instead of carried over, so one slow frame cannot snowball into a spiral of death.
+    public int advance(double frameSeconds) {
+        accumulator += Math.max(0, frameSeconds);
+
+        int steps = (int) (accumulator / stepSeconds);
+        if (steps > maxStepsPerFrame) {
+            droppedTicks += steps - maxStepsPerFrame;
+            steps = maxStepsPerFrame;
+            accumulator = 0;
+            return steps;
+        }
+
+        accumulator -= steps * (double) stepSeconds;
+        return steps;
+    }
+
+    // How far the current frame is between the last tick and the next one, 0..1
+    public float getAlpha() {
+        return (float) Math.min(1.0, accumulator / stepSeconds);
+    }
+
+    public float getStepSeconds() {
+        return stepSeconds;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+}
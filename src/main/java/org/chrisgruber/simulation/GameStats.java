@@ -0,0 +1,71 @@
+package org.chrisgruber.simulation;
+
+import org.chrisgruber.entity.TowerAim;
+
+// Balance numbers for towers and ships, and how towers aim. A simulation applies them to towers
+// as they are placed and to ships as they spawn; waves may still give their ships their own speed
+// and health. A world snapshot saves them, and each tower and ship keeps its own copy.
+public class GameStats {
+    public static final GameStats DEFAULT = new GameStats(0.5f, 10f, 3f, 20f, 0.05f);
+
+    private final float towerRange;
+    private final float towerDamage;
+    private final float towerCooldown;
+    private final float shipHealth;
+    private final float shipSpeed;
+    private final TowerAim towerAim;
+
+    public GameStats(float towerRange, float towerDamage, float towerCooldown, float shipHealth, float shipSpeed) {
+        this(towerRange, towerDamage, towerCooldown, shipHealth, shipSpeed, TowerAim.INTERCEPT);
+    }
+
+    public GameStats(float towerRange, float towerDamage, float towerCooldown, float shipHealth, float shipSpeed,
+                     TowerAim towerAim) {
+        if (towerRange <= 0 || towerDamage <= 0 || towerCooldown <= 0 || shipHealth <= 0 || shipSpeed <= 0) {
+            throw new IllegalArgumentException("Stats must be positive: range " + towerRange + ", damage " + towerDamage
+                    + ", cooldown " + towerCooldown + ", ship health " + shipHealth + ", ship speed " + shipSpeed);
+        }
+        this.towerRange = towerRange;
+        this.towerDamage = towerDamage;
+        this.towerCooldown = towerCooldown;
+        this.shipHealth = shipHealth;
+        this.shipSpeed = shipSpeed;
+        this.towerAim = towerAim;
+    }
+
+    public float getTowerRange() {
+        return towerRange;
+    }
+
+    public float getTowerDamage() {
+        return towerDamage;
+    }
+
+    // Seconds between a tower's shots
+    public float getTowerCooldown() {
+        return towerCooldown;
+    }
+
+    public float getShipHealth() {
+        return shipHealth;
+    }
+
+    public float getShipSpeed() {
+        return shipSpeed;
+    }
+
+    public TowerAim getTowerAim() {
+        return towerAim;
+    }
+
+    // The same stats with towers aiming another way
+    public GameStats withTowerAim(TowerAim towerAim) {
+        return new GameStats(towerRange, towerDamage, towerCooldown, shipHealth, shipSpeed, towerAim);
+    }
+
+    @Override
+    public String toString() {
+        return "range=" + towerRange + " damage=" + towerDamage + " cooldown=" + towerCooldown
+                + " ship-health=" + shipHealth + " ship-speed=" + shipSpeed + " aim=" + towerAim;
+    }
+}
@@ -0,0 +1,231 @@
+package org.chrisgruber.simulation;
+
+import org.chrisgruber.log.EventLog;
+import org.chrisgruber.log.LogLevel;
+import org.chrisgruber.metrics.FrameProfiler;
+import org.chrisgruber.metrics.MetricsWriter;
+import org.chrisgruber.metrics.Phase;
+import org.chrisgruber.replay.ReplayReader;
+import org.chrisgruber.replay.ReplayRecorder;
+import org.chrisgruber.util.Options;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Steps the simulation at a fixed tick as fast as the CPU allows, without a window or GL context.
+// Usage: HeadlessRunner [--ticks=N] [--tick-rate=HZ] [--grid=N] [--towers=N] [--ships=N] [--threads=N]
+//                       [--seed=N] [--record=FILE] [--load-snapshot=FILE] [--save-snapshot=FILE]
+//                       [--log-level=debug|info|warn|off] [--metrics=FILE.csv|FILE.jsonl]
+//        HeadlessRunner --replay=FILE [--threads=N]
+// A replay takes its grid, tick rate and seed from the file, re-runs the recorded inputs and
+// checks that the final state matches the recording. A loaded snapshot replaces the generated
+// island and the --grid, --seed, --towers and --ships options. Metrics are per-phase tick timings
+// and entity counts, written once per second of wall time.
+public class HeadlessRunner {
+    private int ticks = 100_000;
+    private int tickRate = 60;
+    private int gridSize = 100;
+    private int towers = 0;
+    private int ships = 0;
+    private int threads = 1;
+    private long seed = new Random().nextLong();
+    private Path recordPath;
+    private Path replayPath;
+    private Path loadSnapshotPath;
+    private Path saveSnapshotPath;
+    private LogLevel logLevel = LogLevel.OFF;
+    private Path metricsPath;
+
+    public static void main(String[] args) throws IOException {
+        HeadlessRunner runner = new HeadlessRunner();
+        runner.parseArgs(args);
+        if (runner.replayPath != null) {
+            runner.replay();
+        } else {
+            runner.run();
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        Options options = Options.parse(args, "--ticks", "--tick-rate", "--grid", "--towers", "--ships",
+                "--threads", "--seed", "--record", "--replay", "--load-snapshot", "--save-snapshot",
+                "--log-level", "--metrics");
+        ticks = options.getInt("--ticks", ticks);
+        tickRate = options.getInt("--tick-rate", tickRate);
+        gridSize = options.getInt("--grid", gridSize);
+        towers = options.getInt("--towers", towers);
+        ships = options.getInt("--ships", ships);
+        threads = options.getInt("--threads", threads);
+        seed = options.getLong("--seed", seed);
+        recordPath = options.getPath("--record");
+        replayPath = options.getPath("--replay");
+        loadSnapshotPath = options.getPath("--load-snapshot");
+        saveSnapshotPath = options.getPath("--save-snapshot");
+        logLevel = LogLevel.valueOf(options.getString("--log-level", logLevel.name()).toUpperCase());
+        metricsPath = options.getPath("--metrics");
+    }
+
+    public void run() throws IOException {
+        Simulation simulation;
+        if (loadSnapshotPath != null) {
+            long start = System.nanoTime();
+            simulation = WorldSnapshot.load(loadSnapshotPath);
+            gridSize = simulation.getGridSize();
+            seed = simulation.getSeed();
+            System.out.printf("Loaded %d entities from %s in %.1f ms%n", simulation.getEntityStore().size(),
+                    loadSnapshotPath, (System.nanoTime() - start) / 1e6);
+        } else {
+            simulation = new Simulation(gridSize, seed);
+            simulation.init();
+        }
+        EventLog eventLog = openEventLog();
+        simulation.setEventLog(eventLog);
+
+        ReplayRecorder recorder = null;
+        if (recordPath != null) {
+            if (loadSnapshotPath != null) {
+                throw new IllegalArgumentException("Replays start from a fresh world, not a snapshot");
+            }
+            recorder = ReplayRecorder.create(recordPath, gridSize, tickRate, seed);
+            simulation.setRecorder(recorder);
+        }
+        if (loadSnapshotPath == null) {
+            populate(simulation);
+        }
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        simulation.setPool(pool);
+
+        FrameProfiler profiler = null;
+        MetricsWriter metricsWriter = null;
+        if (metricsPath != null) {
+            profiler = new FrameProfiler(1.0);
+            metricsWriter = new MetricsWriter(metricsPath);
+            profiler.setWriter(metricsWriter);
+            simulation.setProfiler(profiler);
+        }
+
+        float deltaTime = 1.0f / tickRate;
+        int reportInterval = Math.max(1, tickRate * 60);
+
+        long start = System.nanoTime();
+        long lastReport = start;
+        for (int tick = 1; tick <= ticks; tick++) {
+            if (profiler != null) {
+                long tickStart = profiler.begin();
+                simulation.update(deltaTime);
+                profiler.end(Phase.FRAME, tickStart);
+                profiler.sampleEntities(simulation.getEntityStore());
+                profiler.endFrame();
+            } else {
+                simulation.update(deltaTime);
+            }
+
+            if (tick % reportInterval == 0) {
+                long now = System.nanoTime();
+                System.out.printf("tick %d: %.0f ticks/s, %d entities%n",
+                        tick, reportInterval / ((now - lastReport) / 1e9), simulation.getEntityStore().size());
+                lastReport = now;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Ran %d ticks (%.1f simulated seconds) in %.3f s: %.0f ticks/s, %.3f ms/tick, %d entities%n",
+                ticks, ticks * deltaTime, elapsed / 1e9, ticks / (elapsed / 1e9),
+                elapsed / 1e6 / ticks, simulation.getEntityStore().size());
+        System.out.printf("Seed %d, final state checksum %016x%n", seed, simulation.checksum());
+
+        if (recorder != null) {
+            recorder.finish(simulation.getTick(), simulation.checksum());
+            recorder.close();
+            System.out.println("Recorded replay to " + recordPath);
+        }
+        if (saveSnapshotPath != null) {
+            long saveStart = System.nanoTime();
+            WorldSnapshot.save(simulation, saveSnapshotPath);
+            System.out.printf("Saved snapshot to %s in %.1f ms%n", saveSnapshotPath, (System.nanoTime() - saveStart) / 1e6);
+        }
+        if (metricsWriter != null) {
+            metricsWriter.close();
+            System.out.println("Wrote metrics to " + metricsPath);
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (eventLog != null) {
+            eventLog.close();
+        }
+    }
+
+    // Feeds each recorded input in before the tick it was stamped with, as fast as possible
+    public void replay() throws IOException {
+        ReplayReader replay = ReplayReader.open(replayPath);
+        Simulation simulation = new Simulation(replay.getGridSize(), replay.getSeed());
+        simulation.init();
+        EventLog eventLog = openEventLog();
+        simulation.setEventLog(eventLog);
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        simulation.setPool(pool);
+
+        float deltaTime = 1.0f / replay.getTickRate();
+        int inputs = 0;
+
+        long start = System.nanoTime();
+        replay.next();
+        while (true) {
+            while (replay.getType() != ReplayReader.TYPE_END && replay.getTick() == simulation.getTick()) {
+                if (replay.getType() == ReplayReader.TYPE_PLACE_TOWER) {
+                    simulation.placeTower(replay.getX(), replay.getY());
+                } else {
+                    simulation.spawnEnemy();
+                }
+                inputs++;
+                replay.next();
+            }
+            if (simulation.getTick() >= replay.getTick() && replay.getType() == ReplayReader.TYPE_END) {
+                break;
+            }
+            simulation.update(deltaTime);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int ticksRun = simulation.getTick();
+        boolean match = simulation.checksum() == replay.getChecksum();
+        System.out.printf("Replayed %d ticks and %d inputs in %.3f s: %.0f ticks/s, %d entities%n",
+                ticksRun, inputs, elapsed / 1e9, ticksRun / (elapsed / 1e9), simulation.getEntityStore().size());
+        System.out.printf("Final state checksum %016x, recorded %016x: %s%n",
+                simulation.checksum(), replay.getChecksum(), match ? "match" : "MISMATCH");
+
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (eventLog != null) {
+            eventLog.close();
+        }
+        if (!match) {
+            System.exit(1);
+        }
+    }
+
+    // Null when logging is off, so the simulation skips events entirely
+    private EventLog openEventLog() {
+        if (logLevel == LogLevel.OFF) {
+            return null;
+        }
+        return new EventLog(logLevel, new BufferedWriter(new OutputStreamWriter(System.out)), 1 << 16);
+    }
+
+    // Placements and extra ships go through the input methods so a recording captures them.
+    // Tower positions come from their own seeded random, which the replay does not need.
+    private void populate(Simulation simulation) {
+        simulation.placeTowersOnLand(towers, seed);
+        for (int i = 0; i < ships; i++) {
+            simulation.spawnEnemy();
+        }
+    }
+}
@@ -0,0 +1,572 @@
+package org.chrisgruber.simulation;
+
+import org.chrisgruber.entity.EnemyShip;
+import org.chrisgruber.entity.Entity;
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.entity.Projectile;
+import org.chrisgruber.entity.Tower;
+import org.chrisgruber.log.EventLog;
+import org.chrisgruber.log.GameEvent;
+import org.chrisgruber.metrics.FrameProfiler;
+import org.chrisgruber.metrics.Phase;
+import org.chrisgruber.replay.ReplayRecorder;
+import org.chrisgruber.wave.SpawnEdge;
+import org.chrisgruber.wave.WaveScheduler;
+import org.chrisgruber.world.FlowField;
+import org.chrisgruber.world.IslandGenerator;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class Simulation {
+    private static final EntityKind[] KINDS = EntityKind.values();
+
+    // Game world properties
+    private final int gridSize;
+    private final long seed;
+    private final IslandGenerator islandGenerator;
+
+    // Game entities, stored as per-kind primitive columns
+    private final EntityStore entityStore = new EntityStore();
+    private final SimulationRandom random;
+    private float spawnTimer = 0;
+
+    // Ticks completed since init; inputs are stamped with the tick they arrive before
+    private int tick = 0;
+
+    // Records inputs from outside the tick when set, so the session can be replayed
+    private ReplayRecorder recorder;
+    private final float SPAWN_INTERVAL = 10.0f; // Spawn enemy every 10 seconds
+    private final float SPAWN_COAST_CLEARANCE = 2.0f; // Cells of water between a new ship and land
+
+    // Bucket sizes at the start of the update pass, so entities spawned mid-pass wait a tick
+    private final int[] updateSizes = new int[KINDS.length];
+
+    // Entities are updated in fixed runs of slots, each recording into its own command buffer.
+    // The chunking does not depend on the thread count, and buffers are applied in chunk order,
+    // so a tick gives the same result on one thread or many.
+    private static final int CHUNK_SIZE = 512;
+    private CommandBuffer[] chunkCommands = new CommandBuffer[0];
+
+    // Runs the chunks of each phase; null runs them all on the calling thread
+    private ForkJoinPool pool;
+
+    private enum Pass { UPDATE, COLLIDE }
+
+    // Spatial index of all active entities, rebuilt once per tick before collisions.
+    // Cells are about twice a ship's size; towers target through it on the next tick.
+    private final SpatialIndex spatialIndex = new SpatialIndex(0.3f);
+
+    // Game events go to a background writer; null logs nothing
+    private EventLog eventLog;
+
+    // Times the phases of each tick when set
+    private FrameProfiler profiler;
+
+    // Scripted waves; when set they replace the timed spawns
+    private WaveScheduler waves;
+
+    // One set of shared paths per target cell ships have been sent to. There are only ever a
+    // few targets, so they are found by a linear search.
+    private FlowField[] flowFields = new FlowField[0];
+
+    // Balance numbers for new towers and ships
+    private GameStats stats = GameStats.DEFAULT;
+
+    // Running totals for balance reports, counted while commands are applied
+    private long shotsFired = 0;
+    private long hits = 0;
+    private long kills = 0;
+
+    public Simulation(int gridSize) {
+        this(gridSize, new Random().nextLong());
+    }
+
+    // Everything random in the simulation derives from the seed, so the same seed and the same
+    // inputs at the same ticks reproduce a session exactly
+    public Simulation(int gridSize, long seed) {
+        this.gridSize = gridSize;
+        this.seed = seed;
+        this.islandGenerator = new IslandGenerator(gridSize, gridSize, seed);
+        this.random = new SimulationRandom(seed ^ 0x5DEECE66DL);
+    }
+
+    public void init() {
+        // Initialize game world
+        islandGenerator.generateIsland();
+
+        // Add initial towers
+        addTower(0, 0);
+    }
+
+    public void update(float deltaTime) {
+        long time = profiler != null ? profiler.begin() : 0;
+
+        // Remember where everything was so rendering can blend towards the new positions
+        entityStore.savePreviousPositions();
+        time = profile(Phase.PREPARE, time);
+
+        // Re-path if the map changed; ships only read the fields during the update phase
+        for (FlowField flowField : flowFields) {
+            flowField.update();
+        }
+        time = profile(Phase.NAVIGATION, time);
+
+        // Spawn scripted waves, or one ship every interval without a script
+        if (waves != null) {
+            waves.update(this, deltaTime);
+        } else {
+            spawnTimer += deltaTime;
+            if (spawnTimer >= SPAWN_INTERVAL) {
+                spawnEnemyAtEdge(SpawnEdge.ANY);
+                spawnTimer = 0;
+            }
+        }
+        time = profile(Phase.SPAWN, time);
+
+        // Update all entities, one kind at a time. Within a kind every entity writes only its
+        // own slot, so the chunks run in parallel; spawns are applied before the next kind starts.
+        for (EntityKind kind : KINDS) {
+            updateSizes[kind.ordinal()] = entityStore.size(kind);
+        }
+        for (EntityKind kind : KINDS) {
+            int chunks = runPhase(Pass.UPDATE, entityStore.getBucket(kind), updateSizes[kind.ordinal()], deltaTime);
+            applyCommands(chunks);
+        }
+        time = profile(Phase.ENTITY_UPDATE, time);
+
+        // Check for collisions
+        checkCollisions();
+        time = profile(Phase.COLLISIONS, time);
+
+        // Remove inactive entities by swap-remove compaction
+        entityStore.compact();
+        profile(Phase.COMPACT, time);
+
+        tick++;
+    }
+
+    // Player input: called between ticks
+    public boolean placeTower(float x, float y) {
+        if (recorder != null) {
+            recorder.recordPlaceTower(tick, x, y);
+        }
+
+        // Towers must stand on land; one bitmap lookup
+        if (islandGenerator.isLand(worldToGrid(x), worldToGrid(y))) {
+            Tower tower = addTower(x, y);
+            logEvent(GameEvent.PLACEMENT, tower, x, y);
+            return true;
+        }
+
+        // Cannot place tower on water
+        logEvent(GameEvent.PLACEMENT_REJECTED, null, x, y);
+        return false;
+    }
+
+    // Player input for headless runs: towers on random land cells, from their own seeded random
+    // so the simulation's draws are unaffected. Gives up after 1000 tries per tower on a map with
+    // little land. Returns how many were placed.
+    public int placeTowersOnLand(int towers, long seed) {
+        Random random = new Random(seed);
+        int placed = 0;
+        int attempts = 0;
+        while (placed < towers && attempts < towers * 1000) {
+            attempts++;
+            int gridX = random.nextInt(gridSize);
+            int gridY = random.nextInt(gridSize);
+            if (islandGenerator.isLand(gridX, gridY)) {
+                placeTower(gridToWorld(gridX), gridToWorld(gridY));
+                placed++;
+            }
+        }
+        return placed;
+    }
+
+    // Input for load tests and debugging: adds a ship on top of the timed spawns
+    public void spawnEnemy() {
+        if (recorder != null) {
+            recorder.recordSpawnEnemy(tick);
+        }
+        spawnEnemyAtEdge(SpawnEdge.ANY);
+    }
+
+    // Adds a ship at a random position along the edge, on open water, heading for the island.
+    // Called from within the tick, so it is not recorded as an input.
+    public EnemyShip spawnEnemyAtEdge(SpawnEdge edge) {
+        float x, y;
+        int attempts = 0;
+        do {
+            switch (edge) {
+                case ANY -> {
+                    if (random.nextBoolean()) {
+                        // Spawn on left or right edge
+                        x = random.nextBoolean() ? -0.9f : 0.9f;
+                        y = random.nextFloat() * 1.8f - 0.9f;
+                    } else {
+                        // Spawn on top or bottom edge
+                        x = random.nextFloat() * 1.8f - 0.9f;
+                        y = random.nextBoolean() ? -0.9f : 0.9f;
+                    }
+                }
+                case LEFT, RIGHT -> {
+                    x = edge == SpawnEdge.LEFT ? -0.9f : 0.9f;
+                    y = random.nextFloat() * 1.8f - 0.9f;
+                }
+                default -> {
+                    x = random.nextFloat() * 1.8f - 0.9f;
+                    y = edge == SpawnEdge.BOTTOM ? -0.9f : 0.9f;
+                }
+            }
+        } while (distanceToCoast(x, y) < SPAWN_COAST_CLEARANCE && ++attempts < 16);
+
+        EnemyShip ship = spawnShip(x, y);
+
+        // Target the center of the island, sailing around the coast to the nearest landing point
+        ship.setTargetPosition(0, 0);
+        ship.setNavigation(getFlowField(0, 0));
+
+        logEvent(GameEvent.SPAWN, ship, x, y);
+        return ship;
+    }
+
+    // Entity creation goes through the store's pools so steady-state play does not allocate
+    public EnemyShip spawnShip(float x, float y) {
+        EnemyShip ship = (EnemyShip) entityStore.acquire(EntityKind.SHIP);
+        if (ship == null) {
+            ship = new EnemyShip();
+        }
+        entityStore.add(ship, x, y, EnemyShip.SIZE, EnemyShip.SIZE);
+        ship.reset();
+        ship.setStats(stats.getShipSpeed(), stats.getShipHealth());
+        return ship;
+    }
+
+    public Projectile spawnProjectile(float x, float y, float targetX, float targetY, float damage, float size, float speed, boolean friendly) {
+        Projectile projectile = (Projectile) entityStore.acquire(EntityKind.PROJECTILE);
+        if (projectile == null) {
+            projectile = new Projectile();
+        }
+        entityStore.add(projectile, x, y, size, size);
+        projectile.reset(targetX, targetY, damage, speed, friendly);
+        return projectile;
+    }
+
+    public Tower addTower(float x, float y) {
+        Tower tower = new Tower(this, stats);
+        entityStore.add(tower, x, y, Tower.SIZE, Tower.SIZE);
+        return tower;
+    }
+
+    // Adds the projectiles recorded in the buffer, in the order they were recorded
+    public void applySpawns(CommandBuffer commands) {
+        for (int i = 0; i < commands.getSpawnCount(); i++) {
+            Projectile projectile = spawnProjectile(
+                    commands.getSpawn(i, 0), commands.getSpawn(i, 1),
+                    commands.getSpawn(i, 2), commands.getSpawn(i, 3),
+                    commands.getSpawn(i, 4), commands.getSpawn(i, 5), commands.getSpawn(i, 6),
+                    commands.isSpawnFriendly(i));
+            if (commands.getSpawnTarget(i) != null) {
+                projectile.setHomingTarget(commands.getSpawnTarget(i));
+            }
+            if (commands.isSpawnFriendly(i)) {
+                shotsFired++;
+            }
+        }
+    }
+
+    // Null runs every phase on the calling thread. The island generates on the same pool.
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        islandGenerator.setPool(pool);
+    }
+
+    public EntityStore getEntityStore() {
+        return entityStore;
+    }
+
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    public IslandGenerator getIslandGenerator() {
+        return islandGenerator;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    // World units per grid cell; the grid spans -0.9..0.9 like the rendered island
+    public float getCellSize() {
+        return 1.8f / gridSize;
+    }
+
+    public int worldToGrid(float world) {
+        return (int) Math.floor(world / getCellSize() + gridSize/2);
+    }
+
+    // World coordinate of the center of a grid cell
+    public float gridToWorld(int grid) {
+        return (grid - gridSize/2 + 0.5f) * getCellSize();
+    }
+
+    // Signed distance from a world position to the coast in cells, positive on water
+    public float distanceToCoast(float x, float y) {
+        return islandGenerator.distanceToCoast(worldToGrid(x), worldToGrid(y));
+    }
+
+    public SimulationRandom getRandom() {
+        return random;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    // Null stops recording
+    public void setRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    // Hash of the tick, spawn timer, random state and every entity column;
+    // equal checksums mean equal state
+    public long checksum() {
+        long hash = entityStore.checksum();
+        hash = hash * 31 + tick;
+        hash = hash * 31 + Float.floatToIntBits(spawnTimer);
+        hash = hash * 31 + random.getState();
+        return hash;
+    }
+
+    float getSpawnTimer() {
+        return spawnTimer;
+    }
+
+    // Used by WorldSnapshot to put the clock back where the saved world left it
+    void restoreClock(int tick, float spawnTimer) {
+        this.tick = tick;
+        this.spawnTimer = spawnTimer;
+    }
+
+    public void setEventLog(EventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    // Shared paths to the cell holding a world position, computed on first use
+    public FlowField getFlowField(float x, float y) {
+        int targetCell = worldToGrid(y) * gridSize + worldToGrid(x);
+        for (FlowField flowField : flowFields) {
+            if (flowField.getTargetCell() == targetCell) {
+                return flowField;
+            }
+        }
+
+        FlowField flowField = new FlowField(islandGenerator, worldToGrid(x), worldToGrid(y));
+        flowFields = Arrays.copyOf(flowFields, flowFields.length + 1);
+        flowFields[flowFields.length - 1] = flowField;
+        return flowField;
+    }
+
+    // Applies to towers placed and ships spawned from now on
+    public void setStats(GameStats stats) {
+        this.stats = stats;
+    }
+
+    public GameStats getStats() {
+        return stats;
+    }
+
+    // Friendly projectiles fired since the simulation was created
+    public long getShotsFired() {
+        return shotsFired;
+    }
+
+    // Projectiles that hit a ship
+    public long getHits() {
+        return hits;
+    }
+
+    // Ships sunk by projectiles
+    public long getKills() {
+        return kills;
+    }
+
+    // Null goes back to the timed spawns
+    public void setWaves(WaveScheduler waves) {
+        this.waves = waves;
+    }
+
+    // Null times nothing
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    private long profile(Phase phase, long begin) {
+        return profiler != null ? profiler.end(phase, begin) : 0;
+    }
+
+    private void logEvent(GameEvent event, Entity entity, float x, float y) {
+        if (eventLog != null) {
+            eventLog.log(event, tick, entity == null ? -1 : entity.getId(), x, y);
+        }
+    }
+
+    public void checkCollisions() {
+        // Rebuild the index from this tick's positions
+        rebuildSpatialIndex();
+
+        // Find hits in parallel against the index, then apply them in projectile order
+        EntityStore.Bucket projectiles = entityStore.getBucket(EntityKind.PROJECTILE);
+        int chunks = runPhase(Pass.COLLIDE, projectiles, projectiles.size(), 0);
+        applyCommands(chunks);
+    }
+
+    // Also used after a snapshot load, since towers target through the previous tick's index
+    void rebuildSpatialIndex() {
+        spatialIndex.clear();
+        for (EntityKind kind : KINDS) {
+            spatialIndex.add(entityStore.getBucket(kind));
+        }
+        spatialIndex.build();
+    }
+
+    // Runs one phase over slots [0, size) of the bucket and returns the number of chunks used
+    private int runPhase(Pass phase, EntityStore.Bucket bucket, int size, float deltaTime) {
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunkCommands.length < chunks) {
+            int oldLength = chunkCommands.length;
+            chunkCommands = Arrays.copyOf(chunkCommands, chunks);
+            for (int c = oldLength; c < chunks; c++) {
+                chunkCommands[c] = new CommandBuffer();
+            }
+        }
+
+        if (pool == null || chunks <= 1) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                runChunk(phase, bucket, size, deltaTime, chunk);
+            }
+        } else {
+            pool.invoke(new PhaseTask(phase, bucket, size, deltaTime, 0, chunks));
+        }
+        return chunks;
+    }
+
+    private void runChunk(Pass phase, EntityStore.Bucket bucket, int size, float deltaTime, int chunk) {
+        CommandBuffer commands = chunkCommands[chunk];
+        int start = chunk * CHUNK_SIZE;
+        int end = Math.min(size, start + CHUNK_SIZE);
+        int[] flags = bucket.getFlags();
+
+        if (phase == Pass.UPDATE) {
+            for (int slot = start; slot < end; slot++) {
+                if ((flags[slot] & EntityStore.FLAG_ACTIVE) != 0) {
+                    bucket.get(slot).update(deltaTime, commands);
+                }
+            }
+            return;
+        }
+
+        int friendlyAndActive = EntityStore.FLAG_ACTIVE | EntityStore.FLAG_FRIENDLY;
+        for (int slot = start; slot < end; slot++) {
+            // Skip if the projectile is not active and friendly
+            if ((flags[slot] & friendlyAndActive) != friendlyAndActive) continue;
+
+            Entity hit = findHit(bucket, slot);
+            if (hit != null) {
+                commands.hit(slot, hit);
+            }
+            // Could add enemy projectiles hitting player units here
+        }
+    }
+
+    // First ship the projectile touched on its way from last tick's position to this one.
+    // Sweeping the whole move means fast projectiles and long ticks cannot skip over a ship.
+    private Entity findHit(EntityStore.Bucket projectiles, int slot) {
+        return spatialIndex.findFirstSweep(
+                projectiles.getPrevX()[slot], projectiles.getPrevY()[slot],
+                projectiles.getX()[slot], projectiles.getY()[slot],
+                projectiles.getWidth()[slot] / 2, projectiles.getHeight()[slot] / 2,
+                EntityKind.SHIP);
+    }
+
+    // Applies every chunk's commands in chunk order, then clears the buffers
+    private void applyCommands(int chunks) {
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            CommandBuffer commands = chunkCommands[chunk];
+            applySpawns(commands);
+            applyHits(commands);
+            commands.clear();
+        }
+    }
+
+    private void applyHits(CommandBuffer commands) {
+        EntityStore.Bucket projectiles = entityStore.getBucket(EntityKind.PROJECTILE);
+        for (int i = 0; i < commands.getHitCount(); i++) {
+            int slot = commands.getHitProjectile(i);
+            Entity hit = commands.getHitTarget(i);
+
+            // An earlier hit in this merge may have sunk the ship; look again the way a
+            // sequential pass would have, which skips ships that are no longer active
+            if (!hit.isActive()) {
+                hit = findHit(projectiles, slot);
+                if (hit == null) continue;
+            }
+
+            // Apply damage to enemy
+            Projectile projectile = (Projectile) projectiles.get(slot);
+            EnemyShip ship = (EnemyShip) hit;
+            ship.takeDamage(projectile.getDamage());
+            hits++;
+            if (!ship.isActive()) {
+                kills++;
+            }
+            if (eventLog != null) {
+                eventLog.log(GameEvent.DAMAGE, tick, ship.getId(), ship.getX(), ship.getY(),
+                        projectile.getDamage(), ship.getHealth());
+                if (!ship.isActive()) {
+                    logEvent(GameEvent.KILL, ship, ship.getX(), ship.getY());
+                }
+            }
+            // Deactivate projectile
+            projectile.setActive(false);
+        }
+    }
+
+    // Splits a range of chunks in half until each task runs a single chunk. Never serialized.
+    @SuppressWarnings("serial")
+    private class PhaseTask extends RecursiveAction {
+        private final Pass phase;
+        private final EntityStore.Bucket bucket;
+        private final int size;
+        private final float deltaTime;
+        private final int fromChunk, toChunk;
+
+        PhaseTask(Pass phase, EntityStore.Bucket bucket, int size, float deltaTime, int fromChunk, int toChunk) {
+            this.phase = phase;
+            this.bucket = bucket;
+            this.size = size;
+            this.deltaTime = deltaTime;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                runChunk(phase, bucket, size, deltaTime, fromChunk);
+                return;
+            }
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new PhaseTask(phase, bucket, size, deltaTime, fromChunk, middle),
+                    new PhaseTask(phase, bucket, size, deltaTime, middle, toChunk));
+        }
+    }
+}
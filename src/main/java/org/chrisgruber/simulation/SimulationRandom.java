@@ -0,0 +1,41 @@
+package org.chrisgruber.simulation;
+
+import java.util.Random;
+
+// java.util.Random with its state exposed, so a snapshot can save it and carry on with exactly
+// the numbers the original would have drawn. Uses the same generator as Random, so a seed gives
+// the same sequence through either class.
+public final class SimulationRandom extends Random {
+    private static final long serialVersionUID = 1L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state;
+
+    public SimulationRandom(long seed) {
+        super(seed);
+        setSeed(seed);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        // Called by the Random constructor before our fields are initialized, and again above
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
@@ -0,0 +1,406 @@
+package org.chrisgruber.simulation;
+
+import org.chrisgruber.entity.Entity;
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Uniform grid over world coordinates used for collisions, targeting and area queries.
+// Entities are bucketed by the cell holding their center and, inside each cell, by kind,
+// so a query for ships never walks towers or projectiles. All distances are squared.
+// Rebuilt from scratch every tick: add() each bucket, then build() sorts items into cells.
+// Items also keep their position from the start of the tick, for swept tests.
+public class SpatialIndex {
+    private static final int KINDS = EntityKind.values().length;
+
+    // Keeps sparse worlds from allocating a huge cell table
+    private static final int MAX_CELLS_PER_ITEM = 4;
+
+    private final float cellSize;
+
+    // Items added since the last clear(), in insertion order
+    private Entity[] items = new Entity[64];
+    private int[] itemId = new int[64];
+    private byte[] itemKind = new byte[64];
+    private float[] itemX = new float[64];
+    private float[] itemY = new float[64];
+    private float[] itemPrevX = new float[64];
+    private float[] itemPrevY = new float[64];
+    private float[] itemHalfW = new float[64];
+    private float[] itemHalfH = new float[64];
+    private int count = 0;
+
+    // Layout produced by build(): items of a cell and kind are sorted[start[b] .. start[b + 1])
+    // where b = cell * KINDS + kind
+    private int[] itemBucket = new int[64];
+    private int[] sorted = new int[64];
+    private int[] bucketStart = new int[KINDS + 1];
+    private float originX, originY;
+    private float effectiveCellSize;
+    private int cellsX, cellsY;
+    private float maxHalfW, maxHalfH;
+
+    // Furthest any item moved this tick, per axis
+    private float maxMoveX, maxMoveY;
+
+    public SpatialIndex(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public void clear() {
+        // Drop references so removed entities can be collected
+        Arrays.fill(items, 0, count, null);
+        count = 0;
+        cellsX = 0;
+        cellsY = 0;
+    }
+
+    // Adds every active entity in the bucket, reading positions straight from its columns
+    public void add(EntityStore.Bucket bucket) {
+        int size = bucket.size();
+        if (count + size > items.length) {
+            grow(Math.max(items.length * 2, count + size));
+        }
+
+        byte kind = (byte) bucket.getKind().ordinal();
+        float[] x = bucket.getX();
+        float[] y = bucket.getY();
+        float[] prevX = bucket.getPrevX();
+        float[] prevY = bucket.getPrevY();
+        float[] width = bucket.getWidth();
+        float[] height = bucket.getHeight();
+        int[] flags = bucket.getFlags();
+        for (int slot = 0; slot < size; slot++) {
+            if ((flags[slot] & EntityStore.FLAG_ACTIVE) == 0) continue;
+
+            items[count] = bucket.get(slot);
+            itemId[count] = items[count].getId();
+            itemKind[count] = kind;
+            itemX[count] = x[slot];
+            itemY[count] = y[slot];
+            itemPrevX[count] = prevX[slot];
+            itemPrevY[count] = prevY[slot];
+            itemHalfW[count] = width[slot] / 2;
+            itemHalfH[count] = height[slot] / 2;
+            count++;
+        }
+    }
+
+    public void build() {
+        if (count == 0) {
+            return;
+        }
+
+        // World bounds of everything added this tick
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        maxHalfW = 0;
+        maxHalfH = 0;
+        maxMoveX = 0;
+        maxMoveY = 0;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, itemX[i]);
+            minY = Math.min(minY, itemY[i]);
+            maxX = Math.max(maxX, itemX[i]);
+            maxY = Math.max(maxY, itemY[i]);
+            maxHalfW = Math.max(maxHalfW, itemHalfW[i]);
+            maxHalfH = Math.max(maxHalfH, itemHalfH[i]);
+            maxMoveX = Math.max(maxMoveX, Math.abs(itemX[i] - itemPrevX[i]));
+            maxMoveY = Math.max(maxMoveY, Math.abs(itemY[i] - itemPrevY[i]));
+        }
+
+        // Grow the cells if the requested size would need too many of them
+        effectiveCellSize = cellSize;
+        long maxCells = Math.max(16L, (long) count * MAX_CELLS_PER_ITEM);
+        while (true) {
+            cellsX = (int) ((maxX - minX) / effectiveCellSize) + 1;
+            cellsY = (int) ((maxY - minY) / effectiveCellSize) + 1;
+            if ((long) cellsX * cellsY <= maxCells) break;
+            effectiveCellSize *= 2;
+        }
+        originX = minX;
+        originY = minY;
+
+        int bucketCount = cellsX * cellsY * KINDS;
+        if (bucketStart.length < bucketCount + 1) {
+            bucketStart = new int[bucketCount + 1];
+        } else {
+            Arrays.fill(bucketStart, 0, bucketCount + 1, 0);
+        }
+
+        // Counting sort of item indices by cell, then kind
+        for (int i = 0; i < count; i++) {
+            int bucket = (cellY(itemY[i]) * cellsX + cellX(itemX[i])) * KINDS + itemKind[i];
+            itemBucket[i] = bucket;
+            bucketStart[bucket + 1]++;
+        }
+        for (int b = 0; b < bucketCount; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        for (int i = 0; i < count; i++) {
+            // bucketStart[bucket] is used as the insertion cursor and restored below
+            sorted[bucketStart[itemBucket[i]]++] = i;
+        }
+        for (int b = bucketCount; b > 0; b--) {
+            bucketStart[b] = bucketStart[b - 1];
+        }
+        bucketStart[0] = 0;
+    }
+
+    // Returns the first active entity of the given kind whose box overlaps the given box, or null
+    public Entity findFirstOverlap(float minX, float minY, float maxX, float maxY, EntityKind kind) {
+        if (cellsX == 0) {
+            return null;
+        }
+
+        int k = kind.ordinal();
+        int startX = cellX(minX - maxHalfW);
+        int endX = cellX(maxX + maxHalfW);
+        int startY = cellY(minY - maxHalfH);
+        int endY = cellY(maxY + maxHalfH);
+
+        for (int cy = startY; cy <= endY; cy++) {
+            for (int cx = startX; cx <= endX; cx++) {
+                int bucket = (cy * cellsX + cx) * KINDS + k;
+                for (int s = bucketStart[bucket]; s < bucketStart[bucket + 1]; s++) {
+                    int i = sorted[s];
+                    if (!isLive(i)) continue;
+
+                    // Simple axis-aligned bounding box collision
+                    if (minX < itemX[i] + itemHalfW[i] &&
+                            maxX > itemX[i] - itemHalfW[i] &&
+                            minY < itemY[i] + itemHalfH[i] &&
+                            maxY > itemY[i] - itemHalfH[i]) {
+                        return items[i];
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // Returns the active entity of the given kind first touched by a box of half size
+    // (halfW, halfH) moving from (x0, y0) to (x1, y1) over the tick, or null. Entities move too,
+    // from their previous position to their current one, so each is tested against the motion
+    // relative to it: a segment against its box grown by the moving box, giving the time of
+    // impact. Ties keep the first match in cell order.
+    public Entity findFirstSweep(float x0, float y0, float x1, float y1, float halfW, float halfH, EntityKind kind) {
+        if (cellsX == 0) {
+            return null;
+        }
+
+        int k = kind.ordinal();
+        float reachX = halfW + maxHalfW + maxMoveX;
+        float reachY = halfH + maxHalfH + maxMoveY;
+        int startX = cellX(Math.min(x0, x1) - reachX);
+        int endX = cellX(Math.max(x0, x1) + reachX);
+        int startY = cellY(Math.min(y0, y1) - reachY);
+        int endY = cellY(Math.max(y0, y1) + reachY);
+
+        Entity first = null;
+        float firstTime = Float.MAX_VALUE;
+        for (int cy = startY; cy <= endY; cy++) {
+            for (int cx = startX; cx <= endX; cx++) {
+                int bucket = (cy * cellsX + cx) * KINDS + k;
+                for (int s = bucketStart[bucket]; s < bucketStart[bucket + 1]; s++) {
+                    int i = sorted[s];
+
+                    // Start and end of the motion relative to the item
+                    float startRelX = x0 - itemPrevX[i];
+                    float startRelY = y0 - itemPrevY[i];
+                    float endRelX = x1 - itemX[i];
+                    float endRelY = y1 - itemY[i];
+                    float time = timeOfImpact(startRelX, startRelY, endRelX - startRelX, endRelY - startRelY,
+                            itemHalfW[i] + halfW, itemHalfH[i] + halfH);
+                    if (time >= 0 && time < firstTime && isLive(i)) {
+                        first = items[i];
+                        firstTime = time;
+                    }
+                }
+            }
+        }
+        return first;
+    }
+
+    // Adds every active entity of the given kind whose box overlaps the given box to out.
+    // Returns the number of entities added; out is not cleared first.
+    public int queryOverlaps(float minX, float minY, float maxX, float maxY, EntityKind kind, List<Entity> out) {
+        if (cellsX == 0) {
+            return 0;
+        }
+
+        int k = kind.ordinal();
+        int startX = cellX(minX - maxHalfW);
+        int endX = cellX(maxX + maxHalfW);
+        int startY = cellY(minY - maxHalfH);
+        int endY = cellY(maxY + maxHalfH);
+
+        int found = 0;
+        for (int cy = startY; cy <= endY; cy++) {
+            for (int cx = startX; cx <= endX; cx++) {
+                int bucket = (cy * cellsX + cx) * KINDS + k;
+                for (int s = bucketStart[bucket]; s < bucketStart[bucket + 1]; s++) {
+                    int i = sorted[s];
+                    if (minX < itemX[i] + itemHalfW[i] &&
+                            maxX > itemX[i] - itemHalfW[i] &&
+                            minY < itemY[i] + itemHalfH[i] &&
+                            maxY > itemY[i] - itemHalfH[i] &&
+                            isLive(i)) {
+                        out.add(items[i]);
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // Returns the closest active entity of the given kind whose center is within radius, or null.
+    // Cells are visited in rings around the query point and the search stops once no
+    // remaining ring can beat the best distance found so far.
+    public Entity findNearest(float x, float y, float radius, EntityKind kind) {
+        if (cellsX == 0) {
+            return null;
+        }
+
+        int k = kind.ordinal();
+        float radiusSq = radius * radius;
+        int centerX = cellX(x);
+        int centerY = cellY(y);
+        int maxRing = (int) (radius / effectiveCellSize) + 1;
+
+        Entity closest = null;
+        float closestDistanceSq = radiusSq;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Anything in this ring is at least (ring - 1) cells away from the query point
+            if (ring > 1) {
+                float ringDistance = (ring - 1) * effectiveCellSize;
+                if (ringDistance * ringDistance > closestDistanceSq) break;
+            }
+
+            int minCy = Math.max(0, centerY - ring), maxCy = Math.min(cellsY - 1, centerY + ring);
+            int minCx = Math.max(0, centerX - ring), maxCx = Math.min(cellsX - 1, centerX + ring);
+            for (int cy = minCy; cy <= maxCy; cy++) {
+                boolean edgeRow = cy == centerY - ring || cy == centerY + ring;
+                // Inner rows only contribute their two edge cells
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int cx = centerX - ring; cx <= centerX + ring; cx += step) {
+                    if (cx < minCx || cx > maxCx) continue;
+
+                    int bucket = (cy * cellsX + cx) * KINDS + k;
+                    for (int s = bucketStart[bucket]; s < bucketStart[bucket + 1]; s++) {
+                        int i = sorted[s];
+                        float dx = itemX[i] - x;
+                        float dy = itemY[i] - y;
+                        float distanceSq = dx*dx + dy*dy;
+                        if (distanceSq <= closestDistanceSq && isLive(i)) {
+                            // Ties keep the first match so results do not depend on ring order
+                            if (distanceSq < closestDistanceSq || closest == null) {
+                                closest = items[i];
+                                closestDistanceSq = distanceSq;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    // Adds every active entity of the given kind whose center is within radius to out.
+    // Returns the number of entities added; out is not cleared first.
+    public int queryRange(float x, float y, float radius, EntityKind kind, List<Entity> out) {
+        if (cellsX == 0) {
+            return 0;
+        }
+
+        int k = kind.ordinal();
+        float radiusSq = radius * radius;
+        int startX = cellX(x - radius);
+        int endX = cellX(x + radius);
+        int startY = cellY(y - radius);
+        int endY = cellY(y + radius);
+
+        int found = 0;
+        for (int cy = startY; cy <= endY; cy++) {
+            for (int cx = startX; cx <= endX; cx++) {
+                int bucket = (cy * cellsX + cx) * KINDS + k;
+                for (int s = bucketStart[bucket]; s < bucketStart[bucket + 1]; s++) {
+                    int i = sorted[s];
+                    float dx = itemX[i] - x;
+                    float dy = itemY[i] - y;
+                    if (dx*dx + dy*dy <= radiusSq && isLive(i)) {
+                        out.add(items[i]);
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Earliest time in [0, 1] at which a point moving from (x, y) by (dx, dy) is strictly inside
+    // the box of half size (halfW, halfH) around the origin, or -1 if it never is.
+    // Slab test: clip the motion to the times it is inside each axis's extent.
+    static float timeOfImpact(float x, float y, float dx, float dy, float halfW, float halfH) {
+        float enter = 0;
+        float exit = 1;
+
+        if (dx == 0) {
+            if (x <= -halfW || x >= halfW) return -1;
+        } else {
+            float t1 = (-halfW - x) / dx;
+            float t2 = (halfW - x) / dx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+
+        if (dy == 0) {
+            if (y <= -halfH || y >= halfH) return -1;
+        } else {
+            float t1 = (-halfH - y) / dy;
+            float t2 = (halfH - y) / dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+
+        return enter < exit ? enter : -1;
+    }
+
+    // Pooled handles can be reused between rebuilds, so the id must still match too
+    private boolean isLive(int i) {
+        Entity entity = items[i];
+        return entity.isActive() && entity.getId() == itemId[i];
+    }
+
+    private int cellX(float x) {
+        int cx = (int) ((x - originX) / effectiveCellSize);
+        return Math.max(0, Math.min(cellsX - 1, cx));
+    }
+
+    private int cellY(float y) {
+        int cy = (int) ((y - originY) / effectiveCellSize);
+        return Math.max(0, Math.min(cellsY - 1, cy));
+    }
+
+    private void grow(int capacity) {
+        items = Arrays.copyOf(items, capacity);
+        itemId = Arrays.copyOf(itemId, capacity);
+        itemKind = Arrays.copyOf(itemKind, capacity);
+        itemX = Arrays.copyOf(itemX, capacity);
+        itemY = Arrays.copyOf(itemY, capacity);
+        itemPrevX = Arrays.copyOf(itemPrevX, capacity);
+        itemPrevY = Arrays.copyOf(itemPrevY, capacity);
+        itemHalfW = Arrays.copyOf(itemHalfW, capacity);
+        itemHalfH = Arrays.copyOf(itemHalfH, capacity);
+        itemBucket = Arrays.copyOf(itemBucket, capacity);
+        sorted = Arrays.copyOf(sorted, capacity);
+    }
+}
@@ -0,0 +1,244 @@
+package org.chrisgruber.simulation;
+
+import org.chrisgruber.entity.EnemyShip;
+import org.chrisgruber.entity.Entity;
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.entity.Projectile;
+import org.chrisgruber.entity.Tower;
+import org.chrisgruber.entity.TowerAim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Saves a whole simulation to a binary file and restores it, so a world can be reloaded exactly
+// as it was instead of being rebuilt by playing. Bucket columns are copied as blocks and each
+// entity adds the few fields it keeps on its handle; nothing is allocated per entity on save.
+//
+// Format, little-endian:
+//   header: int magic "IDSN", short version, int grid size, long seed, int tick,
+//           float spawn timer, long random state,
+//           float tower range, tower damage, tower cooldown, ship health, ship speed,
+//           byte tower aim ordinal
+//           (the stats for towers placed and ships spawned from then on)
+//   island: int long count, long[] land bits (see IslandGenerator.getLandBits)
+//   then for each EntityKind in order:
+//           int kind ordinal, int count, int state bytes per entity,
+//           float[count] x, y, width, height, vx, vy, health, int[count] flags,
+//           count * state bytes of per-entity state
+public final class WorldSnapshot {
+    private static final int MAGIC = 0x4E534449; // "IDSN"
+    private static final short VERSION = 5;
+    private static final int HEADER_BYTES = 4 + 2 + 4 + 8 + 4 + 4 + 8 + 5 * 4 + 1;
+
+    // Float columns per entity, then the flags column
+    private static final int COLUMN_BYTES = 7 * Float.BYTES + Integer.BYTES;
+
+    private static final EntityKind[] KINDS = EntityKind.values();
+    private static final TowerAim[] AIMS = TowerAim.values();
+
+    private WorldSnapshot() {
+    }
+
+    public static void save(Simulation simulation, Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(sizeOf(simulation)).order(ByteOrder.LITTLE_ENDIAN);
+        write(simulation, buffer);
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public static Simulation load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        }
+    }
+
+    // Exact number of bytes write() will produce
+    public static int sizeOf(Simulation simulation) {
+        long size = HEADER_BYTES;
+        size += Integer.BYTES + (long) simulation.getIslandGenerator().getLandBits().length * Long.BYTES;
+
+        EntityStore store = simulation.getEntityStore();
+        for (EntityKind kind : KINDS) {
+            EntityStore.Bucket bucket = store.getBucket(kind);
+            size += 3 * Integer.BYTES;
+            size += (long) bucket.size() * (COLUMN_BYTES + stateBytes(bucket));
+        }
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("World is too large for a snapshot");
+        }
+        return (int) size;
+    }
+
+    public static void write(Simulation simulation, ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(simulation.getGridSize());
+        buffer.putLong(simulation.getSeed());
+        buffer.putInt(simulation.getTick());
+        buffer.putFloat(simulation.getSpawnTimer());
+        buffer.putLong(simulation.getRandom().getState());
+        GameStats stats = simulation.getStats();
+        buffer.putFloat(stats.getTowerRange());
+        buffer.putFloat(stats.getTowerDamage());
+        buffer.putFloat(stats.getTowerCooldown());
+        buffer.putFloat(stats.getShipHealth());
+        buffer.putFloat(stats.getShipSpeed());
+        buffer.put((byte) stats.getTowerAim().ordinal());
+
+        long[] landBits = simulation.getIslandGenerator().getLandBits();
+        buffer.putInt(landBits.length);
+        buffer.asLongBuffer().put(landBits);
+        buffer.position(buffer.position() + landBits.length * Long.BYTES);
+
+        EntityStore store = simulation.getEntityStore();
+        for (EntityKind kind : KINDS) {
+            EntityStore.Bucket bucket = store.getBucket(kind);
+            int count = bucket.size();
+            buffer.putInt(kind.ordinal());
+            buffer.putInt(count);
+            buffer.putInt(stateBytes(bucket));
+
+            putFloats(buffer, bucket.getX(), count);
+            putFloats(buffer, bucket.getY(), count);
+            putFloats(buffer, bucket.getWidth(), count);
+            putFloats(buffer, bucket.getHeight(), count);
+            putFloats(buffer, bucket.getVx(), count);
+            putFloats(buffer, bucket.getVy(), count);
+            putFloats(buffer, bucket.getHealth(), count);
+            buffer.asIntBuffer().put(bucket.getFlags(), 0, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+
+            for (int slot = 0; slot < count; slot++) {
+                bucket.get(slot).writeState(buffer);
+            }
+        }
+    }
+
+    public static Simulation read(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a world snapshot");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+        }
+
+        int gridSize = buffer.getInt();
+        long seed = buffer.getLong();
+        Simulation simulation = new Simulation(gridSize, seed);
+        simulation.restoreClock(buffer.getInt(), buffer.getFloat());
+        simulation.getRandom().setState(buffer.getLong());
+        simulation.setStats(new GameStats(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(),
+                buffer.getFloat(), buffer.getFloat(), AIMS[buffer.get()]));
+
+        long[] landBits = new long[buffer.getInt()];
+        buffer.asLongBuffer().get(landBits);
+        buffer.position(buffer.position() + landBits.length * Long.BYTES);
+        simulation.getIslandGenerator().loadLandBits(landBits);
+
+        EntityStore store = simulation.getEntityStore();
+        for (EntityKind kind : KINDS) {
+            if (buffer.getInt() != kind.ordinal()) {
+                throw new IllegalArgumentException("Corrupt snapshot: entity kinds out of order");
+            }
+            int count = buffer.getInt();
+            int stateBytes = buffer.getInt();
+
+            // Add the entities first so the bucket has its slots, then fill the columns in blocks
+            store.ensureCapacity(kind, count);
+            for (int i = 0; i < count; i++) {
+                create(simulation, kind);
+            }
+            EntityStore.Bucket bucket = store.getBucket(kind);
+            if (count > 0 && stateBytes(bucket) != stateBytes) {
+                throw new IllegalArgumentException("Corrupt snapshot: unexpected " + kind + " state size");
+            }
+
+            getFloats(buffer, bucket.getX(), count);
+            getFloats(buffer, bucket.getY(), count);
+            getFloats(buffer, bucket.getWidth(), count);
+            getFloats(buffer, bucket.getHeight(), count);
+            getFloats(buffer, bucket.getVx(), count);
+            getFloats(buffer, bucket.getVy(), count);
+            getFloats(buffer, bucket.getHealth(), count);
+            buffer.asIntBuffer().get(bucket.getFlags(), 0, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+
+            for (int slot = 0; slot < count; slot++) {
+                bucket.get(slot).readState(buffer);
+            }
+
+            // Targets are saved as ship slots; ships come first, so they are in place by now
+            EntityStore.Bucket ships = store.getBucket(EntityKind.SHIP);
+            if (kind == EntityKind.TOWER) {
+                for (int slot = 0; slot < count; slot++) {
+                    ((Tower) bucket.get(slot)).linkTarget(ships);
+                }
+            } else if (kind == EntityKind.PROJECTILE) {
+                for (int slot = 0; slot < count; slot++) {
+                    ((Projectile) bucket.get(slot)).linkTarget(ships);
+                }
+            }
+
+            // Paths are derived from the map, so ships are pointed at them again rather than saved
+            if (kind == EntityKind.SHIP) {
+                for (int slot = 0; slot < count; slot++) {
+                    EnemyShip ship = (EnemyShip) bucket.get(slot);
+                    if (ship.wasNavigating()) {
+                        ship.setNavigation(simulation.getFlowField(ship.getTargetX(), ship.getTargetY()));
+                    }
+                }
+            }
+        }
+
+        // Nothing has moved since the snapshot, so there is nothing to interpolate from
+        store.savePreviousPositions();
+
+        // Towers aim through the index built at the end of the previous tick
+        simulation.rebuildSpatialIndex();
+        return simulation;
+    }
+
+    // Adds a placeholder entity; its columns and state are overwritten from the snapshot
+    private static void create(Simulation simulation, EntityKind kind) {
+        switch (kind) {
+            case SHIP -> simulation.spawnShip(0, 0);
+            case TOWER -> simulation.addTower(0, 0);
+            case PROJECTILE -> simulation.spawnProjectile(0, 0, 0, 0, 0, 0, 0, false);
+        }
+    }
+
+    private static int stateBytes(EntityStore.Bucket bucket) {
+        if (bucket.size() == 0) {
+            return 0;
+        }
+        Entity first = bucket.get(0);
+        return first.getStateBytes();
+    }
+
+    private static void putFloats(ByteBuffer buffer, float[] values, int count) {
+        buffer.asFloatBuffer().put(values, 0, count);
+        buffer.position(buffer.position() + count * Float.BYTES);
+    }
+
+    private static void getFloats(ByteBuffer buffer, float[] values, int count) {
+        buffer.asFloatBuffer().get(values, 0, count);
+        buffer.position(buffer.position() + count * Float.BYTES);
+    }
+}
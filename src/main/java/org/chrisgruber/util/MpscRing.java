@@ -0,0 +1,76 @@
+package org.chrisgruber.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Sequencing for a bounded ring that many threads write and one thread reads. The ring only
+// hands out slot indexes; the owner keeps the payload in its own preallocated primitive
+// columns, so neither side allocates. A full ring refuses the write (counted) rather than
+// blocking.
+//
+// A producer claims a sequence number, fills that slot's columns and then publishes it. The
+// reader only reads slots whose sequence has been published, and releases them once read.
+public final class MpscRing {
+    private final int mask;
+    private final AtomicLongArray published;
+
+    // Next sequence to claim, and next sequence the reader will read
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed = 0;
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Capacity is rounded up to a power of two
+    public MpscRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public int index(long sequence) {
+        return (int) sequence & mask;
+    }
+
+    // Producer side: the sequence to fill and publish, or -1 if the ring is full
+    public long claim() {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed > mask) {
+                dropped.incrementAndGet();
+                return -1;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        return sequence;
+    }
+
+    // Makes the slot's columns visible to the reader; call after filling them
+    public void publish(long sequence) {
+        published.lazySet(index(sequence), sequence);
+    }
+
+    // Reader side, one thread only: the next sequence to read
+    public long getReadSequence() {
+        return consumed;
+    }
+
+    public boolean isPublished(long sequence) {
+        return published.get(index(sequence)) == sequence;
+    }
+
+    // Frees every slot before the sequence for producers; call only once they have been read
+    public void release(long sequence) {
+        consumed = sequence;
+    }
+
+    // Writes refused because the ring was full
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,81 @@
+package org.chrisgruber.util;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Command-line options of the form --name=value, shared by the headless tools. Each tool lists
+// the names it takes, so a mistyped option fails instead of being ignored. Getters take the
+// value to use when the option was left out.
+public final class Options {
+    private final Map<String, String> values = new HashMap<>();
+
+    private Options() {
+    }
+
+    public static Options parse(String[] args, String... names) {
+        List<String> known = List.of(names);
+        Options options = new Options();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            if (!known.contains(parts[0])) {
+                throw new IllegalArgumentException("Unknown option: " + parts[0]);
+            }
+            options.values.put(parts[0], parts[1]);
+        }
+        return options;
+    }
+
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    public String getString(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    public int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    public long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    // Anything but "true" (in any case) is false, as Boolean.parseBoolean has it
+    public boolean getBoolean(String name, boolean defaultValue) {
+        String value = values.get(name);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    public float getFloat(String name, float defaultValue) {
+        String value = values.get(name);
+        return value != null ? Float.parseFloat(value) : defaultValue;
+    }
+
+    // Null when left out
+    public Path getPath(String name) {
+        String value = values.get(name);
+        return value != null ? Path.of(value) : null;
+    }
+
+    // A comma-separated list of values
+    public float[] getFloats(String name, float[] defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        String[] items = value.split(",");
+        float[] floats = new float[items.length];
+        for (int i = 0; i < items.length; i++) {
+            floats[i] = Float.parseFloat(items[i].strip());
+        }
+        return floats;
+    }
+}
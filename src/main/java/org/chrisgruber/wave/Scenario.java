@@ -0,0 +1,207 @@
+package org.chrisgruber.wave;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// A repeatable load test: world setup, the waves to play, how long to run and the tick-time
+// budgets the run must stay within.
+//
+// Text format, one directive per line, '#' starts a comment:
+//   scenario [grid=100] [seed=42] [towers=0] [ticks=3600] [tick-rate=60] [max-spawns-per-tick=64]
+//            [warmup-ticks=600] [budget-p99-ms=0] [budget-max-ms=0]
+//   wave count=N [at=0] [burst=count] [interval=0] [edges=any] [speed=S] [health=H]
+// Times are in seconds, edges a comma-separated list of left, right, top, bottom or any, and a
+// budget of 0 is not checked. Towers go on random land cells. Ships of waves without a speed or
+// health take them from the game's stats (0.05 and 20 by default).
+public class Scenario {
+    private final String name;
+    private int gridSize = 100;
+    private long seed = 42;
+    private int towers = 0;
+    private int ticks = 3600;
+    private int tickRate = 60;
+    private int maxSpawnsPerTick = 64;
+    private int warmupTicks = 600;
+    private double budgetP99Millis = 0;
+    private double budgetMaxMillis = 0;
+    private final List<Wave> waves = new ArrayList<>();
+
+    private Scenario(String name) {
+        this.name = name;
+    }
+
+    // Reads a scenario file, or failing that one of the bundled scenarios by name
+    public static Scenario load(String pathOrName) throws IOException {
+        Path path = Path.of(pathOrName);
+        if (Files.isRegularFile(path)) {
+            String fileName = path.getFileName().toString();
+            return parse(stripExtension(fileName), Files.readAllLines(path, StandardCharsets.UTF_8));
+        }
+
+        try (InputStream in = Scenario.class.getResourceAsStream("/scenarios/" + pathOrName + ".scenario")) {
+            if (in == null) {
+                throw new IllegalArgumentException("No scenario file or bundled scenario named " + pathOrName);
+            }
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return parse(pathOrName, text.lines().toList());
+        }
+    }
+
+    public static Scenario parse(String name, List<String> lines) {
+        Scenario scenario = new Scenario(name);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            try {
+                String[] words = line.split("\\s+");
+                switch (words[0]) {
+                    case "scenario" -> scenario.parseSettings(words);
+                    case "wave" -> scenario.waves.add(parseWave(words));
+                    default -> throw new IllegalArgumentException("Unknown directive: " + words[0]);
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(name + " line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return scenario;
+    }
+
+    private void parseSettings(String[] words) {
+        for (int w = 1; w < words.length; w++) {
+            String[] parts = split(words[w]);
+            String value = parts[1];
+            switch (parts[0]) {
+                case "grid" -> gridSize = Integer.parseInt(value);
+                case "seed" -> seed = Long.parseLong(value);
+                case "towers" -> towers = Integer.parseInt(value);
+                case "ticks" -> ticks = Integer.parseInt(value);
+                case "tick-rate" -> tickRate = Integer.parseInt(value);
+                case "max-spawns-per-tick" -> maxSpawnsPerTick = Integer.parseInt(value);
+                case "warmup-ticks" -> warmupTicks = Integer.parseInt(value);
+                case "budget-p99-ms" -> budgetP99Millis = Double.parseDouble(value);
+                case "budget-max-ms" -> budgetMaxMillis = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown scenario setting: " + parts[0]);
+            }
+        }
+    }
+
+    private static Wave parseWave(String[] words) {
+        float at = 0;
+        int count = -1;
+        int burst = 0;
+        float interval = 0;
+        SpawnEdge[] edges = {SpawnEdge.ANY};
+        // 0 leaves the game's ship stats in place
+        float speed = 0;
+        float health = 0;
+
+        for (int w = 1; w < words.length; w++) {
+            String[] parts = split(words[w]);
+            String value = parts[1];
+            switch (parts[0]) {
+                case "at" -> at = Float.parseFloat(value);
+                case "count" -> count = Integer.parseInt(value);
+                case "burst" -> burst = Integer.parseInt(value);
+                case "interval" -> interval = Float.parseFloat(value);
+                case "edges" -> edges = parseEdges(value);
+                case "speed" -> speed = Float.parseFloat(value);
+                case "health" -> health = Float.parseFloat(value);
+                default -> throw new IllegalArgumentException("Unknown wave setting: " + parts[0]);
+            }
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("A wave needs a count");
+        }
+
+        // Without a burst size the whole wave arrives at once
+        return new Wave(at, count, burst > 0 ? burst : Math.max(1, count), interval, edges, speed, health);
+    }
+
+    private static SpawnEdge[] parseEdges(String value) {
+        String[] names = value.split(",");
+        SpawnEdge[] edges = new SpawnEdge[names.length];
+        for (int i = 0; i < names.length; i++) {
+            edges[i] = SpawnEdge.valueOf(names[i].strip().toUpperCase());
+        }
+        return edges;
+    }
+
+    private static String[] split(String word) {
+        String[] parts = word.split("=", 2);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Expected name=value but got: " + word);
+        }
+        return parts;
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTowers() {
+        return towers;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public int getMaxSpawnsPerTick() {
+        return maxSpawnsPerTick;
+    }
+
+    public int getWarmupTicks() {
+        return warmupTicks;
+    }
+
+    public double getBudgetP99Millis() {
+        return budgetP99Millis;
+    }
+
+    public double getBudgetMaxMillis() {
+        return budgetMaxMillis;
+    }
+
+    public List<Wave> getWaves() {
+        return Collections.unmodifiableList(waves);
+    }
+
+    public int getShipCount() {
+        int ships = 0;
+        for (Wave wave : waves) {
+            ships += wave.getCount();
+        }
+        return ships;
+    }
+}
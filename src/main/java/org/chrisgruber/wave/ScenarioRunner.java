@@ -0,0 +1,146 @@
+package org.chrisgruber.wave;
+
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.entity.TowerAim;
+import org.chrisgruber.metrics.FrameProfiler;
+import org.chrisgruber.metrics.LatencyHistogram;
+import org.chrisgruber.metrics.MetricsWriter;
+import org.chrisgruber.metrics.Phase;
+import org.chrisgruber.simulation.GameStats;
+import org.chrisgruber.simulation.Simulation;
+import org.chrisgruber.util.Options;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// Plays a scenario headlessly, as fast as the CPU allows, and checks the tick time against the
+// scenario's budgets. Exits with status 1 if a budget is exceeded, so it can gate a build.
+// Also reports how many shots hit and how many projectiles were in flight, mean and peak; run
+// it once per --aim to compare ways of aiming on the same seed. --ship-speed applies to waves
+// that do not set their own.
+// Usage: ScenarioRunner <file or bundled name> [--threads=N] [--metrics=FILE.csv|FILE.jsonl]
+//        [--aim=DIRECT|INTERCEPT|HOMING] [--ship-speed=S]
+// Bundled scenarios: skirmish, siege-10k, flank-burst
+public class ScenarioRunner {
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: ScenarioRunner <scenario file or name> [--threads=N] [--metrics=FILE] [--aim=NAME] [--ship-speed=S]");
+            System.exit(2);
+        }
+
+        Scenario scenario = Scenario.load(args[0]);
+        Options options = Options.parse(Arrays.copyOfRange(args, 1, args.length),
+                "--threads", "--metrics", "--aim", "--ship-speed");
+        GameStats defaults = GameStats.DEFAULT;
+        GameStats stats = new GameStats(defaults.getTowerRange(), defaults.getTowerDamage(),
+                defaults.getTowerCooldown(), defaults.getShipHealth(),
+                options.getFloat("--ship-speed", defaults.getShipSpeed()),
+                TowerAim.valueOf(options.getString("--aim", defaults.getTowerAim().name())));
+
+        boolean passed = run(scenario, options.getInt("--threads", 1), options.getPath("--metrics"), stats);
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    public static boolean run(Scenario scenario, int threads, Path metricsPath, GameStats stats) throws IOException {
+        Simulation simulation = new Simulation(scenario.getGridSize(), scenario.getSeed());
+        simulation.setStats(stats);
+        simulation.init();
+        simulation.placeTowersOnLand(scenario.getTowers(), scenario.getSeed());
+
+        WaveScheduler waves = new WaveScheduler(scenario.getWaves(), scenario.getMaxSpawnsPerTick());
+        simulation.setWaves(waves);
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        simulation.setPool(pool);
+
+        FrameProfiler profiler = null;
+        MetricsWriter metricsWriter = null;
+        if (metricsPath != null) {
+            profiler = new FrameProfiler(1.0);
+            metricsWriter = new MetricsWriter(metricsPath);
+            profiler.setWriter(metricsWriter);
+            simulation.setProfiler(profiler);
+        }
+
+        System.out.printf("Scenario %s: %d towers, %d ships in %d waves, %d ticks at %d Hz, %d threads, %s aim%n",
+                scenario.getName(), simulation.getEntityStore().size(EntityKind.TOWER), scenario.getShipCount(),
+                scenario.getWaves().size(), scenario.getTicks(), scenario.getTickRate(), threads, stats.getTowerAim());
+
+        // Tick times after the warm-up, while the JIT has settled
+        LatencyHistogram tickTimes = new LatencyHistogram();
+        EntityStore store = simulation.getEntityStore();
+        float deltaTime = 1.0f / scenario.getTickRate();
+        int peakEntities = 0;
+        int peakShips = 0;
+        int peakProjectiles = 0;
+        long projectileTicks = 0;
+
+        long start = System.nanoTime();
+        for (int tick = 0; tick < scenario.getTicks(); tick++) {
+            long tickStart = System.nanoTime();
+            simulation.update(deltaTime);
+            long tickEnd = System.nanoTime();
+
+            if (tick >= scenario.getWarmupTicks()) {
+                tickTimes.record(tickEnd - tickStart);
+            }
+            peakEntities = Math.max(peakEntities, store.size());
+            peakShips = Math.max(peakShips, store.size(EntityKind.SHIP));
+            int projectiles = store.size(EntityKind.PROJECTILE);
+            peakProjectiles = Math.max(peakProjectiles, projectiles);
+            projectileTicks += projectiles;
+
+            if (profiler != null) {
+                profiler.end(Phase.FRAME, tickStart);
+                profiler.sampleEntities(store);
+                profiler.endFrame();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (metricsWriter != null) {
+            metricsWriter.close();
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+
+        System.out.printf("Ran in %.2f s: %d ships spawned, %d still waiting (at most %d, %d per tick), "
+                        + "peak %d ships and %d entities, %d ships left%n",
+                elapsed / 1e9, waves.getSpawned(), waves.getPending(), waves.getPeakPending(),
+                waves.getMaxSpawnsPerTick(), peakShips, peakEntities, store.size(EntityKind.SHIP));
+        long shots = simulation.getShotsFired();
+        System.out.printf("Shots: %d fired, %.1f%% hit, %d kills; projectiles in flight: mean %.2f, peak %d%n",
+                shots, shots > 0 ? 100.0 * simulation.getHits() / shots : 0, simulation.getKills(),
+                (double) projectileTicks / scenario.getTicks(), peakProjectiles);
+
+        if (tickTimes.getCount() == 0) {
+            System.out.println("No ticks after the warm-up; budgets not checked");
+            return true;
+        }
+        double p50 = tickTimes.getPercentile(0.50) / 1e6;
+        double p99 = tickTimes.getPercentile(0.99) / 1e6;
+        double max = tickTimes.getMax() / 1e6;
+        System.out.printf("Tick time over %d ticks: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                tickTimes.getCount(), p50, p99, max);
+
+        boolean passed = checkBudget("p99", p99, scenario.getBudgetP99Millis());
+        passed &= checkBudget("max", max, scenario.getBudgetMaxMillis());
+        System.out.println(passed ? "PASS" : "FAIL: tick time over budget");
+        return passed;
+    }
+
+    private static boolean checkBudget(String label, double millis, double budget) {
+        if (budget <= 0) {
+            return true;
+        }
+        boolean within = millis <= budget;
+        System.out.printf("  %s %.3f ms, budget %.3f ms: %s%n", label, millis, budget, within ? "ok" : "OVER");
+        return within;
+    }
+}
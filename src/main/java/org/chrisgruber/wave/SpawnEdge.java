@@ -0,0 +1,10 @@
+package org.chrisgruber.wave;
+
+// Side of the map a ship enters from. ANY picks a side at random the way the timed spawns do.
+public enum SpawnEdge {
+    LEFT,
+    RIGHT,
+    TOP,
+    BOTTOM,
+    ANY
+}
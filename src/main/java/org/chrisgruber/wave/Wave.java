@@ -0,0 +1,66 @@
+package org.chrisgruber.wave;
+
+import java.util.Arrays;
+
+// One wave of ships: count ships arriving in bursts of burstSize, one burst every
+// burstInterval seconds from startTime on. Each ship enters from one of the edges, picked at
+// random, with the given speed and health; 0 keeps the simulation's ship stats.
+public class Wave {
+    private final float startTime;
+    private final int count;
+    private final int burstSize;
+    private final float burstInterval;
+    private final SpawnEdge[] edges;
+    private final float speed;
+    private final float health;
+
+    public Wave(float startTime, int count, int burstSize, float burstInterval, SpawnEdge[] edges, float speed, float health) {
+        if (count < 0 || burstSize < 1 || burstInterval < 0 || edges.length == 0) {
+            throw new IllegalArgumentException("Invalid wave: count " + count + ", burst " + burstSize
+                    + ", interval " + burstInterval + ", edges " + Arrays.toString(edges));
+        }
+        this.startTime = startTime;
+        this.count = count;
+        this.burstSize = burstSize;
+        this.burstInterval = burstInterval;
+        this.edges = edges.clone();
+        this.speed = speed;
+        this.health = health;
+    }
+
+    public float getStartTime() {
+        return startTime;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getBurstSize() {
+        return burstSize;
+    }
+
+    public float getBurstInterval() {
+        return burstInterval;
+    }
+
+    public int getBurstCount() {
+        return (count + burstSize - 1) / burstSize;
+    }
+
+    public int getEdgeCount() {
+        return edges.length;
+    }
+
+    public SpawnEdge getEdge(int index) {
+        return edges[index];
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public float getHealth() {
+        return health;
+    }
+}
@@ -0,0 +1,106 @@
+package org.chrisgruber.wave;
+
+import org.chrisgruber.entity.EnemyShip;
+import org.chrisgruber.simulation.GameStats;
+import org.chrisgruber.simulation.Simulation;
+import org.chrisgruber.simulation.SimulationRandom;
+
+import java.util.List;
+
+// Releases each wave's bursts on time and spawns the released ships, at most maxSpawnsPerTick
+// per tick so a burst of thousands is spread over several ticks instead of stalling one.
+// Ships left over wait in order: earlier waves first. Runs inside Simulation.update and draws
+// from the simulation's random, so a seed plays the same waves the same way every time.
+// Its progress is not part of a world snapshot.
+public class WaveScheduler {
+    private final Wave[] waves;
+    private final int maxSpawnsPerTick;
+
+    // Per wave: bursts released so far and ships released but not yet spawned
+    private final int[] burstsReleased;
+    private final int[] pending;
+
+    private double elapsed = 0;
+    private long spawned = 0;
+    private int peakPending = 0;
+
+    public WaveScheduler(List<Wave> waves, int maxSpawnsPerTick) {
+        if (maxSpawnsPerTick < 1) {
+            throw new IllegalArgumentException("maxSpawnsPerTick must be at least 1");
+        }
+        this.waves = waves.toArray(new Wave[0]);
+        this.maxSpawnsPerTick = maxSpawnsPerTick;
+        this.burstsReleased = new int[this.waves.length];
+        this.pending = new int[this.waves.length];
+    }
+
+    public void update(Simulation simulation, float deltaTime) {
+        elapsed += deltaTime;
+
+        // Release every burst that is due
+        int waiting = 0;
+        for (int i = 0; i < waves.length; i++) {
+            Wave wave = waves[i];
+            while (burstsReleased[i] < wave.getBurstCount()
+                    && elapsed >= wave.getStartTime() + burstsReleased[i] * (double) wave.getBurstInterval()) {
+                int remaining = wave.getCount() - burstsReleased[i] * wave.getBurstSize();
+                pending[i] += Math.min(wave.getBurstSize(), remaining);
+                burstsReleased[i]++;
+            }
+            waiting += pending[i];
+        }
+        peakPending = Math.max(peakPending, waiting);
+
+        // Spawn as many as this tick allows
+        int budget = maxSpawnsPerTick;
+        SimulationRandom random = simulation.getRandom();
+        for (int i = 0; i < waves.length && budget > 0; i++) {
+            Wave wave = waves[i];
+            while (pending[i] > 0 && budget > 0) {
+                SpawnEdge edge = wave.getEdgeCount() == 1
+                        ? wave.getEdge(0)
+                        : wave.getEdge(random.nextInt(wave.getEdgeCount()));
+                EnemyShip ship = simulation.spawnEnemyAtEdge(edge);
+                if (wave.getSpeed() > 0 || wave.getHealth() > 0) {
+                    GameStats stats = simulation.getStats();
+                    ship.setStats(wave.getSpeed() > 0 ? wave.getSpeed() : stats.getShipSpeed(),
+                            wave.getHealth() > 0 ? wave.getHealth() : stats.getShipHealth());
+                }
+                pending[i]--;
+                budget--;
+                spawned++;
+            }
+        }
+    }
+
+    // True once every ship of every wave has been spawned
+    public boolean isFinished() {
+        for (int i = 0; i < waves.length; i++) {
+            if (burstsReleased[i] < waves[i].getBurstCount() || pending[i] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getSpawned() {
+        return spawned;
+    }
+
+    public int getPending() {
+        int waiting = 0;
+        for (int count : pending) {
+            waiting += count;
+        }
+        return waiting;
+    }
+
+    // Most ships that were ever waiting for a spawn slot at once
+    public int getPeakPending() {
+        return peakPending;
+    }
+
+    public int getMaxSpawnsPerTick() {
+        return maxSpawnsPerTick;
+    }
+}
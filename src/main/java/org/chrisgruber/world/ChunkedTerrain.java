@@ -0,0 +1,271 @@
+package org.chrisgruber.world;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Land bits of a map too big for the heap, kept in a file and read through memory-mapped chunks.
+// A chunk is a square of cells at one bit per cell, mapped the first time a cell in it is read
+// and unmapped again (left to the collector) once more than the resident limit are mapped.
+// Chunks are evicted in clock order, which approximates least recently used without writing
+// an access order on every lookup. Reads may run on several threads; writes from several
+// threads must keep to separate rows, so they never share a 64-bit word. Mapping and eviction
+// happen under the terrain's lock; lookups read the published chunk without it.
+// The heap only holds the chunk table: a 16k x 16k map is a 32 MB file.
+// FlowField and the island meshers read any Terrain, but a Simulation still plays on an
+// in-memory IslandGenerator, whose coast distance field ships spawn by takes a float per cell,
+// and each FlowField keeps two ints per cell. A map this size can be generated, stored, meshed
+// and read back but not yet played.
+//
+// Format, little-endian:
+//   header: int magic "IDTR", short version, int width, int height, int chunk size,
+//           padded to HEADER_BYTES
+//   then each chunk, in rows of chunks from the top left: chunk size * chunk size bits,
+//           rows of cells from the top left, bit i of long i / 64 for cell i
+public class ChunkedTerrain implements Terrain, Closeable {
+    private static final int MAGIC = 0x52544449; // "IDTR"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4096;
+    private static final int MAX_CHUNK_SIZE = 1 << 15;
+
+    private final FileChannel channel;
+    private final boolean writable;
+    private final int width;
+    private final int height;
+    private final int chunkSize;
+    private final int chunkShift;
+    private final int chunksX;
+    private final long chunkBytes;
+
+    // Mapped chunks by chunk index, null when not resident. Lookups read chunks without the
+    // lock, so it is an atomic array: a chunk seen there has been fully set up.
+    private final MappedByteBuffer[] mapped;
+    private final AtomicReferenceArray<LongBuffer> chunks;
+
+    // Clock eviction: the resident chunks in a ring, and whether each was read since the hand
+    // last passed it (1) or not (0)
+    private final int[] resident;
+    private final AtomicIntegerArray referenced;
+    private int residentCount = 0;
+    private int hand = 0;
+    private long loads = 0;
+
+    private ChunkedTerrain(FileChannel channel, boolean writable, int width, int height, int chunkSize,
+                           int maxResidentChunks) {
+        // Cell indexes within a chunk are ints, so a chunk holds at most 2^30 cells
+        if (chunkSize < 64 || chunkSize > MAX_CHUNK_SIZE || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("Chunk size must be a power of two from 64 to " + MAX_CHUNK_SIZE
+                    + ": " + chunkSize);
+        }
+        if (maxResidentChunks < 1) {
+            throw new IllegalArgumentException("At least one chunk must be resident");
+        }
+        this.channel = channel;
+        this.writable = writable;
+        this.width = width;
+        this.height = height;
+        this.chunkSize = chunkSize;
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.chunksX = (width + chunkSize - 1) / chunkSize;
+        this.chunkBytes = (long) chunkSize * chunkSize / 8;
+
+        int chunkCount = chunksX * ((height + chunkSize - 1) / chunkSize);
+        this.mapped = new MappedByteBuffer[chunkCount];
+        this.chunks = new AtomicReferenceArray<>(chunkCount);
+        this.resident = new int[Math.min(maxResidentChunks, chunkCount)];
+        this.referenced = new AtomicIntegerArray(chunkCount);
+    }
+
+    // Creates an all-water map, replacing any file at the path. The file is sparse until written.
+    public static ChunkedTerrain create(Path path, int width, int height, int chunkSize, int maxResidentChunks)
+            throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ChunkedTerrain terrain;
+        try {
+            terrain = new ChunkedTerrain(channel, true, width, height, chunkSize, maxResidentChunks);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).putInt(width).putInt(height).putInt(chunkSize);
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+
+            // Setting the length up front leaves the chunks as zeros, which is water
+            channel.write(ByteBuffer.allocate(1), HEADER_BYTES + terrain.chunks.length() * terrain.chunkBytes - 1);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return terrain;
+    }
+
+    // Opens a saved map read-only. Nothing but the header is read until cells are looked up.
+    public static ChunkedTerrain open(Path path, int maxResidentChunks) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(4 + 2 + 3 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Terrain file is truncated: " + path);
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a terrain file: " + path);
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported terrain version: " + version);
+            }
+
+            ChunkedTerrain terrain = new ChunkedTerrain(channel, false, header.getInt(), header.getInt(),
+                    header.getInt(), maxResidentChunks);
+            if (channel.size() < HEADER_BYTES + terrain.chunks.length() * terrain.chunkBytes) {
+                throw new IOException("Terrain file is truncated: " + path);
+            }
+            return terrain;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public boolean isLand(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        int chunk = (y >>> chunkShift) * chunksX + (x >>> chunkShift);
+        int bit = ((y & (chunkSize - 1)) << chunkShift) | (x & (chunkSize - 1));
+        return (chunk(chunk).get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    // Only on a map from create()
+    public void setLand(int x, int y, boolean land) {
+        if (!writable) {
+            throw new IllegalStateException("Terrain was opened read-only");
+        }
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Cell " + x + "," + y + " is outside a " + width + "x" + height + " map");
+        }
+        int chunk = (y >>> chunkShift) * chunksX + (x >>> chunkShift);
+        int bit = ((y & (chunkSize - 1)) << chunkShift) | (x & (chunkSize - 1));
+        LongBuffer bits = chunk(chunk);
+        long word = bits.get(bit >>> 6);
+        bits.put(bit >>> 6, land ? word | (1L << bit) : word & ~(1L << bit));
+    }
+
+    // Chunks mapped so far, including ones mapped again after eviction
+    public synchronized long getLoadCount() {
+        return loads;
+    }
+
+    public synchronized int getResidentChunks() {
+        return residentCount;
+    }
+
+    public int getMaxResidentChunks() {
+        return resident.length;
+    }
+
+    // Writes changed chunks that are still mapped back to the file
+    public synchronized void flush() {
+        if (!writable) {
+            return;
+        }
+        for (int i = 0; i < residentCount; i++) {
+            mapped[resident[i]].force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private LongBuffer chunk(int chunk) {
+        LongBuffer bits = chunks.get(chunk);
+        if (bits == null) {
+            bits = load(chunk);
+        }
+        // Only written when it changes, so lookups in the same chunk do not keep dirtying it
+        if (referenced.get(chunk) == 0) {
+            referenced.lazySet(chunk, 1);
+        }
+        return bits;
+    }
+
+    private synchronized LongBuffer load(int chunk) {
+        // Another thread may have mapped it while this one waited
+        LongBuffer loaded = chunks.get(chunk);
+        if (loaded != null) {
+            return loaded;
+        }
+
+        int ring;
+        if (residentCount < resident.length) {
+            ring = residentCount++;
+        } else {
+            ring = evict();
+        }
+
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    HEADER_BYTES + chunk * chunkBytes, chunkBytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map terrain chunk " + chunk, e);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        LongBuffer bits = buffer.asLongBuffer();
+        mapped[chunk] = buffer;
+        resident[ring] = chunk;
+        chunks.set(chunk, bits);
+        loads++;
+        return bits;
+    }
+
+    // Frees the ring position of the first chunk the hand finds unread since its last pass.
+    // Readers still holding the chunk finish with it; the mapping goes once they drop it.
+    private int evict() {
+        while (true) {
+            int chunk = resident[hand];
+            int ring = hand;
+            hand = (hand + 1) % resident.length;
+            if (referenced.get(chunk) != 0) {
+                referenced.set(chunk, 0);
+                continue;
+            }
+            chunks.set(chunk, null);
+            if (writable) {
+                mapped[chunk].force();
+            }
+            mapped[chunk] = null;
+            return ring;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.chrisgruber.world;
+
+// Exact Euclidean distance transform over a packed bitmap (Felzenszwalb & Huttenlocher):
+// one linear pass down each column, then a lower-envelope-of-parabolas pass along each row.
+// Cells are indexed y * width + x, matching IslandGenerator's bitmap.
+final class DistanceTransform {
+    // Squared distance reported for cells with no feature anywhere on the map
+    static final float NO_FEATURE = Float.POSITIVE_INFINITY;
+
+    private static final double INF = 1e20;
+
+    private DistanceTransform() {
+    }
+
+    // Writes the squared distance from every cell to the nearest cell whose bit equals
+    // featureBit into distanceSq. If nearest is not null it also receives that cell's index,
+    // or -1 when there is none.
+    static void compute(long[] bits, int width, int height, boolean featureBit,
+                        float[] distanceSq, int[] nearest) {
+        int cells = width * height;
+
+        // Pass 1: distance along each column to the nearest feature, and that feature's row
+        double[] columnDistanceSq = new double[cells];
+        int[] columnNearestY = new int[cells];
+        for (int x = 0; x < width; x++) {
+            int lastY = -1;
+            for (int y = 0; y < height; y++) {
+                if (isSet(bits, y * width + x) == featureBit) {
+                    lastY = y;
+                }
+                columnNearestY[y * width + x] = lastY;
+            }
+            lastY = -1;
+            for (int y = height - 1; y >= 0; y--) {
+                int index = y * width + x;
+                if (isSet(bits, index) == featureBit) {
+                    lastY = y;
+                }
+                int above = columnNearestY[index];
+                int best = above;
+                if (lastY >= 0 && (above < 0 || lastY - y < y - above)) {
+                    best = lastY;
+                }
+                columnNearestY[index] = best;
+                columnDistanceSq[index] = best < 0 ? INF : (double) (best - y) * (best - y);
+            }
+        }
+
+        // Pass 2: lower envelope of parabolas along each row
+        double[] f = new double[width];
+        int[] v = new int[width];
+        double[] z = new double[width + 1];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                f[x] = columnDistanceSq[row + x];
+            }
+
+            int k = 0;
+            v[0] = 0;
+            z[0] = -INF;
+            z[1] = INF;
+            for (int q = 1; q < width; q++) {
+                double s;
+                while (true) {
+                    int p = v[k];
+                    s = ((f[q] + (double) q * q) - (f[p] + (double) p * p)) / (2.0 * q - 2.0 * p);
+                    if (s > z[k]) break;
+                    k--;
+                }
+                k++;
+                v[k] = q;
+                z[k] = s;
+                z[k + 1] = INF;
+            }
+
+            k = 0;
+            for (int q = 0; q < width; q++) {
+                while (z[k + 1] < q) {
+                    k++;
+                }
+                int p = v[k];
+                double d = (double) (q - p) * (q - p) + f[p];
+                boolean found = f[p] < INF;
+                distanceSq[row + q] = found ? (float) d : NO_FEATURE;
+                if (nearest != null) {
+                    nearest[row + q] = found ? columnNearestY[row + p] * width + p : -1;
+                }
+            }
+        }
+    }
+
+    static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,164 @@
+package org.chrisgruber.world;
+
+import java.util.Arrays;
+
+// Shortest paths from every cell of the map to one target cell, shared by every ship heading
+// there. Computed once with Dijkstra over 8-connected cells and kept until the map changes, so
+// steering is a lookup of the next cell on the way instead of a search per ship.
+//
+// Water costs 10 per straight step and 14 per diagonal one. Land costs LAND_COST_FACTOR times
+// as much: ships cross it only for the last stretch to a target on land, so they sail around
+// the coast to the landing point closest to the target instead of cutting over the island.
+// Cells use the terrain's y * width + x indexing and the -0.9..0.9 world mapping shared
+// with the simulation and the island mesh.
+public final class FlowField {
+    public static final int LAND_COST_FACTOR = 8;
+
+    private static final int[] STEP_X = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] STEP_Y = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final int[] STEP_COST = {10, 10, 10, 10, 14, 14, 14, 14};
+
+    private final Terrain terrain;
+    private final int width, height;
+    private final int targetCell;
+    private final float cellSize;
+    private final int halfGrid;
+
+    // Next cell towards the target, -1 at the target itself
+    private final int[] next;
+    private final int[] cost;
+    private int version = -1;
+
+    // Binary heap of (cost << 32 | cell), reused between computes
+    private long[] heap = new long[256];
+
+    public FlowField(Terrain terrain, int targetX, int targetY) {
+        this.terrain = terrain;
+        this.width = terrain.getWidth();
+        this.height = terrain.getHeight();
+        int gridSize = Math.max(width, height);
+        this.cellSize = 1.8f / gridSize;
+        this.halfGrid = gridSize / 2;
+        this.targetCell = clamp(targetY, height) * width + clamp(targetX, width);
+        this.next = new int[width * height];
+        this.cost = new int[width * height];
+        update();
+    }
+
+    // Recomputes the paths if the map has changed since they were last computed.
+    // Not thread-safe; call between ticks, never while ships are steering.
+    public boolean update() {
+        if (terrain.getVersion() == version) {
+            return false;
+        }
+        compute();
+        version = terrain.getVersion();
+        return true;
+    }
+
+    public int getTargetCell() {
+        return targetCell;
+    }
+
+    // Cell holding a world position, clamped to the map
+    public int cellAt(float x, float y) {
+        int gx = clamp((int) Math.floor(x / cellSize + halfGrid), width);
+        int gy = clamp((int) Math.floor(y / cellSize + halfGrid), height);
+        return gy * width + gx;
+    }
+
+    // Next cell on the way to the target, or -1 at the target
+    public int nextCell(int cell) {
+        return next[cell];
+    }
+
+    // Path cost from the cell to the target, in tenths of a water cell
+    public int costAt(int cell) {
+        return cost[cell];
+    }
+
+    public float cellCenterX(int cell) {
+        return (cell % width - halfGrid + 0.5f) * cellSize;
+    }
+
+    public float cellCenterY(int cell) {
+        return (cell / width - halfGrid + 0.5f) * cellSize;
+    }
+
+    private void compute() {
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        Arrays.fill(next, -1);
+
+        int heapSize = 0;
+        cost[targetCell] = 0;
+        heapSize = push(heapSize, 0, targetCell);
+
+        while (heapSize > 0) {
+            long top = heap[0];
+            heapSize = pop(heapSize);
+            int cell = (int) top;
+            int cellCost = (int) (top >>> 32);
+            if (cellCost > cost[cell]) continue; // Stale entry
+
+            int x = cell % width;
+            int y = cell / width;
+            for (int d = 0; d < STEP_X.length; d++) {
+                int nx = x + STEP_X[d];
+                int ny = y + STEP_Y[d];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+
+                // Paths are searched from the target outwards, so the cost is that of
+                // leaving the neighbour towards this cell
+                int neighbour = ny * width + nx;
+                int stepCost = STEP_COST[d];
+                if (terrain.isLand(nx, ny)) {
+                    stepCost *= LAND_COST_FACTOR;
+                }
+                int newCost = cellCost + stepCost;
+                if (newCost < cost[neighbour]) {
+                    cost[neighbour] = newCost;
+                    next[neighbour] = cell;
+                    heapSize = push(heapSize, newCost, neighbour);
+                }
+            }
+        }
+    }
+
+    private int push(int size, int entryCost, int cell) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        long entry = (long) entryCost << 32 | cell;
+        int i = size;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+        return size + 1;
+    }
+
+    private int pop(int size) {
+        size--;
+        long last = heap[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= last) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return size;
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
@@ -1,61 +1,279 @@
 package org.chrisgruber.world;
 
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Generates the island and keeps it in memory: the land bits towers are placed by and the coast
+// distance ships spawn by. Maps too big for the heap are generated into a ChunkedTerrain
+// instead, which only keeps the land bits.
+public class IslandGenerator implements Terrain {
+    private static final int NOISE_OCTAVES = 5;
+
+    // Rows per parallel band, before rounding up so bands start on a bitmap word
+    private static final int MIN_BAND_ROWS = 16;
 
-public class IslandGenerator {
     private final int width;
     private final int height;
-    private final Random random;
+    private final long seed;
+
+    // Lookups rebuilt once per generation, both indexed y * width + x:
+    // packed land bits (the map itself) and signed distance to the coast in cells (positive on
+    // water, negative on land)
+    private final long[] landBits;
+    private final float[] coastDistance;
 
-    // 0 = water, 1 = land
-    private final int[][] islandMap;
+    // Bumped whenever the map changes so cached geometry knows to rebuild
+    private int version = 0;
+
+    // Generates bands of rows in parallel when set
+    private ForkJoinPool pool;
 
     public IslandGenerator(int width, int height) {
+        this(width, height, new Random().nextLong());
+    }
+
+    // The same seed and size always give the same island
+    public IslandGenerator(int width, int height, long seed) {
         this.width = width;
         this.height = height;
-        this.random = new Random();
-        this.islandMap = new int[width][height];
+        this.seed = seed;
+        this.landBits = new long[(width * height + 63) / 64];
+        this.coastDistance = new float[width * height];
     }
 
     public void generateIsland() {
-        // Center of the island
-        int centerX = width / 2;
-        int centerY = height / 2;
-
-        // Island radius (roughly circular)
-        int baseRadius = Math.min(width, height) / 3;
-
-        // Generate the island
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                // Distance from center
-                double distance = Math.sqrt(Math.pow(x - centerX, 2) + Math.pow(y - centerY, 2));
-
-                // Add some noise to make the border irregular
-                double noise = random.nextDouble() * baseRadius * 0.3;
-
-                // If within radius, it's land
-                if (distance < baseRadius + noise) {
-                    islandMap[x][y] = 1; // Land
-                } else {
-                    islandMap[x][y] = 0; // Water
+        generateLand(width, height, seed, pool, landBits);
+
+        buildLookups();
+        version++;
+    }
+
+    // Null generates on the calling thread
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Packs the island for this seed into bits indexed y * width + x, as getLandBits() has them.
+    // Bands of rows are generated in parallel on the pool, or on the calling thread if it is
+    // null; the bits are the same either way.
+    public static void generateLand(int width, int height, long seed, ForkJoinPool pool, long[] landBits) {
+        Arrays.fill(landBits, 0L);
+        generate(width, height, seed, pool, new LandWriter() {
+            @Override
+            public void land(int x, int y) {
+                int index = y * width + x;
+                landBits[index >>> 6] |= 1L << index;
+            }
+
+            @Override
+            public void land(int fromX, int toX, int y) {
+                int from = y * width + fromX;
+                int to = y * width + toX;
+                while (from < to) {
+                    // Whole words at a time: the bits from 'from' up to the end of its word or 'to'
+                    int count = Math.min(64 - (from & 63), to - from);
+                    long mask = count == 64 ? -1L : ((1L << count) - 1) << from;
+                    landBits[from >>> 6] |= mask;
+                    from += count;
                 }
             }
+        });
+    }
+
+    // Generates the island for this seed into a store on disk without building the in-memory
+    // lookups. Gives the same land as generateIsland() at the same size.
+    public static void generateIsland(long seed, ChunkedTerrain terrain, ForkJoinPool pool) {
+        generate(terrain.getWidth(), terrain.getHeight(), seed, pool, (x, y) -> terrain.setLand(x, y, true));
+    }
+
+    // Calls land() for every land cell, from several threads at once when there is a pool.
+    // Bands start on rows whose first cell begins a 64-bit word, so no two bands write to the
+    // same word of a packed bitmap.
+    private static void generate(int width, int height, long seed, ForkJoinPool pool, LandWriter land) {
+        // Island radius (roughly circular), pushed out by up to 30% where the noise is high.
+        // Features about half the radius across keep the coast coherent at any map size.
+        float baseRadius = Math.min(width, height) / 3;
+        ValueNoise noise = new ValueNoise(seed, width, Math.max(baseRadius / 2, 1), NOISE_OCTAVES);
+
+        int alignRows = 64 / Integer.lowestOneBit(width | 64);
+        int rowsPerBand = (MIN_BAND_ROWS + alignRows - 1) / alignRows * alignRows;
+        int bands = (height + rowsPerBand - 1) / rowsPerBand;
+
+        Shape shape = new Shape(width, height, baseRadius, noise, rowsPerBand, land);
+        if (pool == null || bands <= 1) {
+            shape.generate(0, bands);
+        } else {
+            pool.invoke(new BandTask(shape, 0, bands));
         }
     }
 
-    public int[][] getIslandMap() {
-        return islandMap;
+    private interface LandWriter {
+        void land(int x, int y);
+
+        // Cells [fromX, toX) of row y
+        default void land(int fromX, int toX, int y) {
+            for (int x = fromX; x < toX; x++) {
+                land(x, y);
+            }
+        }
     }
 
+    // The island's shape, generated a range of bands at a time. Shared by every task; each call
+    // brings its own buffers.
+    private static class Shape {
+        private final int width;
+        private final int height;
+        private final float baseRadius;
+        private final ValueNoise noise;
+        private final int rowsPerBand;
+        private final LandWriter land;
+
+        Shape(int width, int height, float baseRadius, ValueNoise noise, int rowsPerBand, LandWriter land) {
+            this.width = width;
+            this.height = height;
+            this.baseRadius = baseRadius;
+            this.noise = noise;
+            this.rowsPerBand = rowsPerBand;
+            this.land = land;
+        }
+
+        void generate(int fromBand, int toBand) {
+            float[] row = new float[width];
+            float[] scratch = noise.newScratch();
+
+            // Center of the island
+            float centerX = width / 2;
+            float centerY = height / 2;
+
+            // The noise only matters between the base radius and 30% beyond it: inside is
+            // always land and outside always water. A cell of margin either way covers rounding.
+            float outerRadius = baseRadius * 1.3f + 2;
+
+            int endRow = Math.min(height, toBand * rowsPerBand);
+            for (int y = fromBand * rowsPerBand; y < endRow; y++) {
+                float dy = y - centerY;
+                float outerSq = outerRadius * outerRadius - dy * dy;
+                if (outerSq <= 0) continue;
+                float outerHalf = (float) Math.sqrt(outerSq);
+                int fromX = Math.max(0, (int) Math.floor(centerX - outerHalf));
+                int toX = Math.min(width, (int) Math.ceil(centerX + outerHalf) + 1);
+
+                // Cells certainly inside the base radius
+                float innerSq = baseRadius * baseRadius - dy * dy;
+                float innerHalf = innerSq > 0 ? (float) Math.sqrt(innerSq) - 1 : 0;
+                int innerFromX = Math.max(fromX, (int) Math.ceil(centerX - innerHalf));
+                int innerToX = Math.min(toX, (int) Math.floor(centerX + innerHalf) + 1);
+                if (innerHalf <= 0 || innerFromX >= innerToX) {
+                    innerFromX = innerToX = toX;
+                }
+
+                coast(y, dy, fromX, innerFromX, centerX, row, scratch);
+                land.land(innerFromX, innerToX, y);
+                coast(y, dy, innerToX, toX, centerX, row, scratch);
+            }
+        }
+
+        // Cells [fromX, toX) of row y where the noise decides between land and water
+        private void coast(int y, float dy, int fromX, int toX, float centerX, float[] row, float[] scratch) {
+            noise.fillRow(y, fromX, toX, row, scratch);
+            for (int x = fromX; x < toX; x++) {
+                // Compared squared, so no square root per cell
+                float dx = x - centerX;
+                float radius = baseRadius * (1 + 0.3f * row[x]);
+                if (dx * dx + dy * dy < radius * radius) {
+                    land.land(x, y);
+                }
+            }
+        }
+    }
+
+    // Splits a range of bands in half until each task runs a single band. Never serialized.
+    @SuppressWarnings("serial")
+    private static class BandTask extends RecursiveAction {
+        private final Shape shape;
+        private final int fromBand, toBand;
+
+        BandTask(Shape shape, int fromBand, int toBand) {
+            this.shape = shape;
+            this.fromBand = fromBand;
+            this.toBand = toBand;
+        }
+
+        @Override
+        protected void compute() {
+            if (toBand - fromBand == 1) {
+                shape.generate(fromBand, toBand);
+                return;
+            }
+            int middle = (fromBand + toBand) >>> 1;
+            invokeAll(new BandTask(shape, fromBand, middle), new BandTask(shape, middle, toBand));
+        }
+    }
+
+    // Runs the distance transforms over the land bits
+    private void buildLookups() {
+        // Water cells measure to the nearest land, land cells to the nearest water
+        float[] toWaterSq = new float[width * height];
+        DistanceTransform.compute(landBits, width, height, true, coastDistance, null);
+        DistanceTransform.compute(landBits, width, height, false, toWaterSq, null);
+        for (int i = 0; i < coastDistance.length; i++) {
+            coastDistance[i] = DistanceTransform.isSet(landBits, i)
+                    ? -(float) Math.sqrt(toWaterSq[i])
+                    : (float) Math.sqrt(coastDistance[i]);
+        }
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    // Packed land bits indexed y * width + x; callers must not modify the array
+    public long[] getLandBits() {
+        return landBits;
+    }
+
+    // Replaces the map with a saved bitmap from getLandBits, e.g. from a world snapshot
+    public void loadLandBits(long[] bits) {
+        if (bits.length != landBits.length) {
+            throw new IllegalArgumentException("Land bitmap does not match a " + width + "x" + height + " map");
+        }
+        System.arraycopy(bits, 0, landBits, 0, landBits.length);
+
+        buildLookups();
+        version++;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
     public boolean isLand(int x, int y) {
         if (x < 0 || x >= width || y < 0 || y >= height) {
             return false;
         }
-        return islandMap[x][y] == 1;
+        return DistanceTransform.isSet(landBits, y * width + x);
     }
 
-    public boolean isWater(int x, int y) {
-        return !isLand(x, y);
+    // Distance in cells from the cell center to the coast: positive on water, negative on land.
+    // Everything outside the map counts as open water.
+    public float distanceToCoast(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return coastDistance[y * width + x];
     }
-}
\ No newline at end of file
+}
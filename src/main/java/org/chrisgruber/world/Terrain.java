@@ -0,0 +1,20 @@
+package org.chrisgruber.world;
+
+// Land and water cells of a map. Everything outside the map counts as water.
+public interface Terrain {
+    int getWidth();
+
+    int getHeight();
+
+    boolean isLand(int x, int y);
+
+    // Changes whenever the land does, so cached paths and geometry know to rebuild. Terrain
+    // that is only written before it is read may leave it at 0.
+    default int getVersion() {
+        return 0;
+    }
+
+    default boolean isWater(int x, int y) {
+        return !isLand(x, y);
+    }
+}
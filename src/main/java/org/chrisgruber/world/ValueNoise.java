@@ -0,0 +1,129 @@
+package org.chrisgruber.world;
+
+import java.util.Arrays;
+
+// Seeded multi-octave value noise over map cells, filled a row at a time. Each octave hashes a
+// lattice half as coarse as the one before and blends it smoothly between lattice points, so
+// nearby cells get nearby values and coastlines come out coherent instead of speckled.
+//
+// Every value is a pure function of the seed and the cell, so rows can be filled on any thread
+// in any order with the same result. Plain float arithmetic, no Math.pow or trig, and the
+// per-column lattice positions are worked out once for the width rather than per cell.
+public class ValueNoise {
+    // Octaves stop before the lattice gets finer than this many cells
+    private static final float MIN_PERIOD = 2f;
+
+    private final long seed;
+    private final int width;
+    private final int octaves;
+    private final float[] invPeriods;
+    private final float[] amplitudes;
+
+    // Per octave and column: the lattice cell to the left and the smoothed offset into it
+    private final int[][] cellX;
+    private final float[][] fadeX;
+    private final int[] latticeWidth;
+
+    // Largest features are about period cells across; values are in [0, 1)
+    public ValueNoise(long seed, int width, float period, int maxOctaves) {
+        this.seed = seed;
+        this.width = width;
+
+        int octaves = 1;
+        while (octaves < maxOctaves && period / (1 << octaves) >= MIN_PERIOD) {
+            octaves++;
+        }
+        this.octaves = octaves;
+        this.invPeriods = new float[octaves];
+        this.amplitudes = new float[octaves];
+        this.cellX = new int[octaves][width];
+        this.fadeX = new float[octaves][width];
+        this.latticeWidth = new int[octaves];
+
+        // Each octave has half the amplitude of the one before, scaled so they add up to 1
+        float total = 0;
+        for (int octave = 0; octave < octaves; octave++) {
+            amplitudes[octave] = 1f / (1 << octave);
+            total += amplitudes[octave];
+        }
+        for (int octave = 0; octave < octaves; octave++) {
+            amplitudes[octave] /= total;
+            invPeriods[octave] = (1 << octave) / period;
+
+            for (int x = 0; x < width; x++) {
+                float position = x * invPeriods[octave];
+                int cell = (int) position;
+                cellX[octave][x] = cell;
+                fadeX[octave][x] = fade(position - cell);
+            }
+            latticeWidth[octave] = cellX[octave][width - 1] + 2;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getOctaves() {
+        return octaves;
+    }
+
+    // Scratch space fillRow needs; one per thread
+    public float[] newScratch() {
+        int size = 0;
+        for (int octave = 0; octave < octaves; octave++) {
+            size = Math.max(size, latticeWidth[octave]);
+        }
+        return new float[size];
+    }
+
+    // Writes the noise for row y into out[0, width)
+    public void fillRow(int y, float[] out, float[] scratch) {
+        fillRow(y, 0, width, out, scratch);
+    }
+
+    // Writes the noise for cells [fromX, toX) of row y into out[fromX, toX). The values are the
+    // same as for the whole row.
+    public void fillRow(int y, int fromX, int toX, float[] out, float[] scratch) {
+        if (fromX >= toX) {
+            return;
+        }
+        Arrays.fill(out, fromX, toX, 0f);
+        for (int octave = 0; octave < octaves; octave++) {
+            int[] cells = cellX[octave];
+            float[] fades = fadeX[octave];
+
+            // Blend the two lattice rows around y once, then every column only blends along x
+            float position = y * invPeriods[octave];
+            int cellY = (int) position;
+            float fadeY = fade(position - cellY);
+            long octaveSeed = seed + octave * 0x632BE59BD9B4E019L;
+            for (int cell = cells[fromX]; cell <= cells[toX - 1] + 1; cell++) {
+                float top = lattice(octaveSeed, cell, cellY);
+                float bottom = lattice(octaveSeed, cell, cellY + 1);
+                scratch[cell] = top + (bottom - top) * fadeY;
+            }
+
+            float amplitude = amplitudes[octave];
+            for (int x = fromX; x < toX; x++) {
+                float left = scratch[cells[x]];
+                float right = scratch[cells[x] + 1];
+                out[x] += (left + (right - left) * fades[x]) * amplitude;
+            }
+        }
+    }
+
+    // Smoothstep, so the blend has no creases at lattice points
+    private static float fade(float t) {
+        return t * t * (3 - 2 * t);
+    }
+
+    // Value in [0, 1) for a lattice point, from a SplitMix64-style mix of the seed and position
+    private static float lattice(long seed, int x, int y) {
+        long hash = seed ^ (x * 0x9E3779B97F4A7C15L) ^ (y * 0xC2B2AE3D27D4EB4FL);
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return (hash >>> 40) * 0x1p-24f;
+    }
+}
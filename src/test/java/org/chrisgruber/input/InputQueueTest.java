@@ -0,0 +1,114 @@
+package org.chrisgruber.input;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// The input queue allocates nothing once built, loses nothing and keeps each thread's order
+// while several threads push, and refuses (and counts) pushes when full.
+class InputQueueTest {
+    private static final int EVENTS = 1_000_000;
+    private static final int PRODUCERS = 4;
+    private static final int EVENTS_PER_PRODUCER = 50_000;
+
+    @Test
+    void pushAndDrainAllocateNothing() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        InputQueue queue = new InputQueue(1024);
+        Counter counter = new Counter();
+
+        // Warm up so class loading and compilation are not counted
+        pushAndDrain(queue, counter);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        pushAndDrain(queue, counter);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(0, allocated, "bytes allocated pushing and draining " + EVENTS + " events");
+        assertEquals(2L * EVENTS, counter.count, "events drained");
+    }
+
+    @Test
+    void producersLoseNothingAndKeepTheirOrder() throws InterruptedException {
+        InputQueue queue = new InputQueue(256);
+        OrderCheck check = new OrderCheck();
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+                    // Retry until the consumer frees a slot, so every event gets through
+                    while (!queue.push(InputEvent.MOUSE_BUTTON, producer, i, 0, 0, 0)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            producers[p].start();
+        }
+
+        long expected = (long) PRODUCERS * EVENTS_PER_PRODUCER;
+        while (check.received < expected) {
+            if (queue.drain(check) == 0) {
+                Thread.yield();
+            }
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(expected, check.received, "events received");
+        assertFalse(check.outOfOrder, "a producer's events arrived out of order");
+    }
+
+    @Test
+    void fullQueueRefusesAndCountsPushes() {
+        InputQueue queue = new InputQueue(16);
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            accepted += queue.push(InputEvent.KEY, i, 1, 0, 0, 0) ? 1 : 0;
+        }
+
+        assertEquals(16, accepted, "pushes accepted");
+        assertEquals(4, queue.getDroppedCount(), "pushes refused");
+        assertEquals(16, queue.drain(new Counter()), "events drained");
+    }
+
+    // Drains every 100 events, like a frame's worth of input
+    private static void pushAndDrain(InputQueue queue, Counter counter) {
+        for (int i = 0; i < EVENTS; i++) {
+            queue.push(InputEvent.KEY, i & 0xFF, 1, 0, 0, 0);
+            if (i % 100 == 99) {
+                queue.drain(counter);
+            }
+        }
+        queue.drain(counter);
+    }
+
+    private static class Counter implements InputQueue.Listener {
+        long count = 0;
+
+        @Override
+        public void onInput(InputEvent event, int code, int action, float x, float y, float value, long timeNanos) {
+            count++;
+        }
+    }
+
+    // The code is the producer and the action its running count
+    private static class OrderCheck implements InputQueue.Listener {
+        final int[] next = new int[PRODUCERS];
+        long received = 0;
+        boolean outOfOrder = false;
+
+        @Override
+        public void onInput(InputEvent event, int code, int action, float x, float y, float value, long timeNanos) {
+            if (action != next[code]) {
+                outOfOrder = true;
+            }
+            next[code] = action + 1;
+            received++;
+        }
+    }
+}
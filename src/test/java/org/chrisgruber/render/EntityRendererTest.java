@@ -0,0 +1,106 @@
+package org.chrisgruber.render;
+
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.entity.Tower;
+import org.chrisgruber.simulation.CommandBuffer;
+import org.chrisgruber.simulation.Simulation;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Builds entities into a SpriteBatch, without a GPU, and checks the vertex count against the
+// shapes each kind should produce and, with a camera, against the ships that overlap the view.
+class EntityRendererTest {
+    // Vertices per shape: ship triangle, tower body + range ring (+ cooldown bar), two-circle energy ball
+    private static final int SHIP_VERTICES = 3;
+    private static final int TOWER_VERTICES = 6 + 20 * 6;
+    private static final int COOLDOWN_VERTICES = 6;
+    private static final int PROJECTILE_VERTICES = 2 * 12 * 3;
+
+    @Test
+    void drawsEveryShapeOfEveryKind() {
+        Random random = new Random(42);
+        Simulation simulation = new Simulation(100, 42);
+        EntityStore store = simulation.getEntityStore();
+
+        // 80% ships, 5% towers, 15% projectiles
+        int entityCount = 10_000;
+        int towers = entityCount / 20;
+        int projectiles = entityCount * 15 / 100;
+        int ships = entityCount - towers - projectiles;
+        for (int i = 0; i < ships; i++) {
+            simulation.spawnShip(coord(random), coord(random)).setTargetPosition(0, 0);
+        }
+        CommandBuffer commands = new CommandBuffer();
+        for (int i = 0; i < towers; i++) {
+            Tower tower = simulation.addTower(coord(random), coord(random));
+            // Every other tower is cooling down so the cooldown bar is drawn
+            if (i % 2 == 0) {
+                tower.attack(tower, commands);
+            }
+        }
+        simulation.applySpawns(commands);
+        // Only the towers' own shots were added above; top up with free-flying projectiles
+        for (int i = store.size(EntityKind.PROJECTILE); i < projectiles; i++) {
+            simulation.spawnProjectile(coord(random), coord(random), 0, 0, 10f, 0.03f, 0.6f, i % 3 != 0);
+        }
+
+        SpriteBatch batch = new SpriteBatch();
+        new EntityRenderer().build(store, batch, 1.0f);
+
+        int coolingTowers = (towers + 1) / 2;
+        int expected = store.size(EntityKind.SHIP) * SHIP_VERTICES
+                + store.size(EntityKind.TOWER) * TOWER_VERTICES
+                + coolingTowers * COOLDOWN_VERTICES
+                + store.size(EntityKind.PROJECTILE) * PROJECTILE_VERTICES;
+        assertEquals(expected, batch.getVertexCount(), "vertices for " + store.size() + " entities");
+    }
+
+    // Ships at the same density over an area much larger than the default view
+    @Test
+    void cullingKeepsExactlyTheShipsInView() {
+        Random random = new Random(42);
+        int shipCount = 100_000;
+        float halfExtent = (float) Math.sqrt(shipCount) * 0.01f;
+        Simulation simulation = new Simulation(100, 42);
+        EntityStore store = simulation.getEntityStore();
+        for (int i = 0; i < shipCount; i++) {
+            float x = (random.nextFloat() * 2 - 1) * halfExtent;
+            float y = (random.nextFloat() * 2 - 1) * halfExtent;
+            simulation.spawnShip(x, y).setTargetPosition(0, 0);
+        }
+        store.savePreviousPositions();
+
+        // Builds the spatial index the culled path reads, as the end of a tick would
+        simulation.checkCollisions();
+
+        Camera camera = new Camera(1024, 768);
+        camera.setBounds(-halfExtent, -halfExtent, halfExtent, halfExtent);
+        SpriteBatch batch = new SpriteBatch();
+        new EntityRenderer().build(store, simulation.getSpatialIndex(), batch, 1.0f, camera);
+
+        assertEquals(expectedVisible(store, camera) * SHIP_VERTICES, batch.getVertexCount(), "vertices in view");
+    }
+
+    // Ships whose bounds overlap the view, worked out independently of the renderer
+    private static int expectedVisible(EntityStore store, Camera camera) {
+        EntityStore.Bucket ships = store.getBucket(EntityKind.SHIP);
+        int visible = 0;
+        for (int slot = 0; slot < ships.size(); slot++) {
+            float radius = Math.max(ships.getWidth()[slot], ships.getHeight()[slot]);
+            float x = ships.getX()[slot];
+            float y = ships.getY()[slot];
+            if (camera.isVisible(x - radius, y - radius, x + radius, y + radius)) {
+                visible++;
+            }
+        }
+        return visible;
+    }
+
+    private static float coord(Random random) {
+        return random.nextFloat() * 1.8f - 0.9f;
+    }
+}
@@ -0,0 +1,53 @@
+package org.chrisgruber.render;
+
+import org.chrisgruber.world.IslandGenerator;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The greedy mesh's quads must cover exactly the land cells, both for the whole map and when it
+// is meshed in the chunks ChunkedIslandMesh uses.
+class IslandMesherTest {
+    @ParameterizedTest(name = "{0}x{0}")
+    @ValueSource(ints = {100, 512, 1024})
+    void quadsCoverExactlyTheLand(int size) {
+        IslandGenerator island = new IslandGenerator(size, size, 42);
+        island.generateIsland();
+
+        long landCells = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                landCells += island.isLand(x, y) ? 1 : 0;
+            }
+        }
+
+        IslandMesher mesher = new IslandMesher();
+        SpriteBatch batch = new SpriteBatch();
+        mesher.build(island, batch);
+        assertEquals(landCells, coveredCells(batch, size), "cells covered by the whole map's quads");
+
+        int chunk = ChunkedIslandMesh.CHUNK_CELLS;
+        batch.clear();
+        for (int x = 0; x < size; x += chunk) {
+            for (int y = 0; y < size; y += chunk) {
+                mesher.build(island, batch, x, y, Math.min(size, x + chunk), Math.min(size, y + chunk));
+            }
+        }
+        assertEquals(landCells, coveredCells(batch, size), "cells covered by the chunks' quads");
+    }
+
+    // Sum of quad areas in grid cells, read back from the first and third vertex of each rect
+    private static long coveredCells(SpriteBatch batch, int size) {
+        float[] vertices = batch.getVertices();
+        double scale = 1.8 / size;
+        int floatsPerQuad = 6 * SpriteBatch.FLOATS_PER_VERTEX;
+        long cells = 0;
+        for (int i = 0; i < batch.getFloatCount(); i += floatsPerQuad) {
+            double width = (vertices[i + 2 * SpriteBatch.FLOATS_PER_VERTEX] - vertices[i]) / scale;
+            double height = (vertices[i + 2 * SpriteBatch.FLOATS_PER_VERTEX + 1] - vertices[i + 1]) / scale;
+            cells += Math.round(width) * Math.round(height);
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,66 @@
+package org.chrisgruber.simulation;
+
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.log.EventLog;
+import org.chrisgruber.log.LogLevel;
+import org.chrisgruber.metrics.FrameProfiler;
+import org.junit.jupiter.api.Test;
+
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Counts bytes allocated by the simulation thread per tick once pools have warmed up.
+// Ships are topped up every tick so spawning, firing and removal all run during the
+// measurement. Every event is logged, so the event log's producer side is covered too; its
+// writer thread formats on its own allocations. The phase timers run as well; their window is
+// longer than the run, since closing a window formats output once a second.
+class AllocationTest {
+    private static final int TOWERS = 200;
+    private static final int SHIPS = 2_000;
+    private static final int WARMUP_TICKS = 20_000;
+    private static final int MEASURED_TICKS = 10_000;
+    private static final float STEP = 1.0f / 60;
+
+    @Test
+    void steadyStateTicksAllocateNothing() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        Simulation simulation = new Simulation(100);
+        EventLog eventLog = new EventLog(LogLevel.DEBUG, Writer.nullWriter(), 1 << 16);
+        simulation.setEventLog(eventLog);
+        simulation.setProfiler(new FrameProfiler(3600));
+        simulation.init();
+        EntityStore store = simulation.getEntityStore();
+
+        // Ring of towers around the island center
+        for (int i = 0; i < TOWERS; i++) {
+            double angle = i * 2 * Math.PI / TOWERS;
+            simulation.addTower((float) Math.cos(angle) * 0.3f, (float) Math.sin(angle) * 0.3f);
+        }
+
+        for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+            step(simulation, store);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int tick = 0; tick < MEASURED_TICKS; tick++) {
+            step(simulation, store);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        eventLog.close();
+
+        assertEquals(0, allocated, "bytes allocated over " + MEASURED_TICKS + " steady-state ticks");
+    }
+
+    private static void step(Simulation simulation, EntityStore store) {
+        // Replace ships the towers destroyed so the wave never thins out
+        while (store.size(EntityKind.SHIP) < SHIPS) {
+            simulation.spawnEnemy();
+        }
+        simulation.update(STEP);
+    }
+}
@@ -0,0 +1,58 @@
+package org.chrisgruber.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs the same starting world on one to four worker threads: every thread count must end in
+// exactly the same state.
+class ParallelUpdateTest {
+    private static final int TOWERS = 200;
+    private static final int SHIPS = 4_000;
+    private static final float HALF_EXTENT = 2.0f;
+    private static final int[] THREADS = {1, 2, 3, 4};
+
+    // Long enough to include an automatic spawn, which draws from the seeded simulation random
+    private static final int TICKS = 700;
+    private static final float DELTA_TIME = 1.0f / 60;
+
+    @Test
+    void everyThreadCountEndsInTheSameState() {
+        long expected = 0;
+        for (int threads : THREADS) {
+            ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+            Simulation simulation = createWorld();
+            simulation.setPool(pool);
+            for (int tick = 0; tick < TICKS; tick++) {
+                simulation.update(DELTA_TIME);
+            }
+            if (pool != null) {
+                pool.shutdown();
+            }
+
+            if (threads == 1) {
+                expected = simulation.checksum();
+            }
+            assertEquals(expected, simulation.checksum(), "checksum on " + threads + " threads");
+        }
+    }
+
+    private static Simulation createWorld() {
+        Random random = new Random(42);
+        Simulation simulation = new Simulation(100, 42);
+        for (int i = 0; i < TOWERS; i++) {
+            simulation.addTower(coord(random), coord(random));
+        }
+        for (int i = 0; i < SHIPS; i++) {
+            simulation.spawnShip(coord(random), coord(random)).setTargetPosition(0, 0);
+        }
+        return simulation;
+    }
+
+    private static float coord(Random random) {
+        return (random.nextFloat() * 2 - 1) * HALF_EXTENT;
+    }
+}
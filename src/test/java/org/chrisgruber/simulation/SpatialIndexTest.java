@@ -0,0 +1,75 @@
+package org.chrisgruber.simulation;
+
+import org.chrisgruber.entity.Entity;
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.entity.EntityStore;
+import org.chrisgruber.entity.Tower;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Tower targeting through the spatial index against a scan of every ship: each tower must get
+// a ship as close as the nearest one in range, or none when none is in range.
+class SpatialIndexTest {
+    private static final float ATTACK_RANGE = 0.5f;
+
+    @Test
+    void findNearestMatchesALinearScan() {
+        Random random = new Random(42);
+        int shipCount = 10_000;
+        float halfExtent = (float) Math.sqrt(shipCount) * 0.1f;
+
+        Simulation simulation = new Simulation(100, 42);
+        for (int i = 0; i < shipCount; i++) {
+            simulation.spawnShip(coord(random, halfExtent), coord(random, halfExtent));
+        }
+        List<Tower> towers = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            towers.add(simulation.addTower(coord(random, halfExtent), coord(random, halfExtent)));
+        }
+
+        EntityStore store = simulation.getEntityStore();
+        SpatialIndex index = new SpatialIndex(0.3f);
+        for (EntityKind kind : EntityKind.values()) {
+            index.add(store.getBucket(kind));
+        }
+        index.build();
+
+        // Equidistant ships may be picked in a different order, so compare distances
+        EntityStore.Bucket ships = store.getBucket(EntityKind.SHIP);
+        for (int t = 0; t < towers.size(); t++) {
+            Tower tower = towers.get(t);
+            Entity found = index.findNearest(tower.getX(), tower.getY(), ATTACK_RANGE, EntityKind.SHIP);
+            assertEquals(nearestByScan(tower, ships), distanceSq(tower, found), "distance to the ship tower " + t + " picks");
+        }
+    }
+
+    private static float coord(Random random, float halfExtent) {
+        return (random.nextFloat() * 2 - 1) * halfExtent;
+    }
+
+    // Squared distance to the nearest ship in range, or -1 if there is none
+    private static float nearestByScan(Tower tower, EntityStore.Bucket ships) {
+        float nearest = -1;
+        for (int slot = 0; slot < ships.size(); slot++) {
+            float distance = distanceSq(tower, ships.get(slot));
+            if (distance <= ATTACK_RANGE * ATTACK_RANGE && (nearest < 0 || distance < nearest)) {
+                nearest = distance;
+            }
+        }
+        return nearest;
+    }
+
+    private static float distanceSq(Entity from, Entity to) {
+        if (to == null) {
+            return -1;
+        }
+        float dx = to.getX() - from.getX();
+        float dy = to.getY() - from.getY();
+        return dx*dx + dy*dy;
+    }
+}
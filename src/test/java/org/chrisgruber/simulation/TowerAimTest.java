@@ -0,0 +1,55 @@
+package org.chrisgruber.simulation;
+
+import org.chrisgruber.entity.TowerAim;
+import org.chrisgruber.wave.Scenario;
+import org.chrisgruber.wave.WaveScheduler;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Plays the skirmish scenario headlessly for each way of aiming, on the same seeds, with ships
+// faster than the default: leading the ships must hit at least as often as shooting where they
+// are. Waves that set their own ship speed keep it.
+class TowerAimTest {
+    private static final int GAMES = 5;
+
+    @ParameterizedTest(name = "ship speed {0}")
+    @ValueSource(floats = {0.15f, 0.3f})
+    void leadingFastShipsHitsAtLeastAsOften(float shipSpeed) throws IOException {
+        Scenario scenario = Scenario.load("skirmish");
+        double direct = hitRate(scenario, shipSpeed, TowerAim.DIRECT);
+        assertTrue(direct > 0, "direct shots never hit");
+        for (TowerAim aim : TowerAim.values()) {
+            if (aim != TowerAim.DIRECT) {
+                double hitRate = hitRate(scenario, shipSpeed, aim);
+                assertTrue(hitRate >= direct, aim + " hit rate " + hitRate + " below direct " + direct);
+            }
+        }
+    }
+
+    private static double hitRate(Scenario scenario, float shipSpeed, TowerAim aim) {
+        GameStats defaults = GameStats.DEFAULT;
+        GameStats stats = new GameStats(defaults.getTowerRange(), defaults.getTowerDamage(),
+                defaults.getTowerCooldown(), defaults.getShipHealth(), shipSpeed, aim);
+        float deltaTime = 1.0f / scenario.getTickRate();
+
+        long shots = 0, hits = 0;
+        for (int game = 0; game < GAMES; game++) {
+            long seed = game + 1;
+            Simulation simulation = new Simulation(scenario.getGridSize(), seed);
+            simulation.setStats(stats);
+            simulation.init();
+            simulation.placeTowersOnLand(scenario.getTowers(), seed);
+            simulation.setWaves(new WaveScheduler(scenario.getWaves(), scenario.getMaxSpawnsPerTick()));
+            for (int tick = 0; tick < scenario.getTicks(); tick++) {
+                simulation.update(deltaTime);
+            }
+            shots += simulation.getShotsFired();
+            hits += simulation.getHits();
+        }
+        return shots > 0 ? (double) hits / shots : 0;
+    }
+}
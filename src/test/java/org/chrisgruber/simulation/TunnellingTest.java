@@ -0,0 +1,97 @@
+package org.chrisgruber.simulation;
+
+import org.chrisgruber.entity.EnemyShip;
+import org.chrisgruber.entity.EntityKind;
+import org.chrisgruber.wave.WaveScheduler;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Fires single projectiles across a ship at a range of speeds and tick lengths and checks the
+// simulation hits exactly when the continuous motion says it should: no tunnelling through the
+// ship on long ticks, and no hits on shots that pass by. Each shot crosses a still ship and a
+// ship sailing across its path at several offsets.
+class TunnellingTest {
+    private static final float[] SPEEDS = {0.6f, 2f, 6f, 12f};
+    private static final int[] TICK_RATES = {120, 60, 30, 15, 8};
+    private static final float[] OFFSETS = {0f, 0.05f, 0.08f, -0.08f, 0.12f};
+
+    private static final float SHOT_START_X = -0.67f;
+    private static final float SHOT_END_X = 0.93f;
+    private static final float SHOT_SIZE = 0.03f;
+    private static final float SHIP_SPEED = 0.05f;
+    private static final float MOVING_SHIP_START_Y = -0.15f;
+
+    static Stream<Arguments> speedsAndTickRates() {
+        List<Arguments> arguments = new ArrayList<>();
+        for (float speed : SPEEDS) {
+            for (int tickRate : TICK_RATES) {
+                arguments.add(Arguments.of(speed, tickRate));
+            }
+        }
+        return arguments.stream();
+    }
+
+    @ParameterizedTest(name = "speed {0} at {1} Hz")
+    @MethodSource("speedsAndTickRates")
+    void hitsExactlyWhenTheContinuousMotionOverlaps(float speed, int tickRate) {
+        float deltaTime = 1.0f / tickRate;
+        for (float offset : OFFSETS) {
+            for (boolean moving : new boolean[] {false, true}) {
+                assertEquals(continuousHit(speed, offset, moving), shoot(speed, deltaTime, offset, moving),
+                        "hit with offset " + offset + (moving ? " on a moving ship" : " on a still ship"));
+            }
+        }
+    }
+
+    // Runs the shot through the simulation and reports whether the ship took damage
+    private static boolean shoot(float speed, float deltaTime, float offset, boolean moving) {
+        Simulation simulation = new Simulation(100);
+
+        // No timed spawns, so the ship is alone
+        simulation.setWaves(new WaveScheduler(List.of(), 1));
+
+        EnemyShip ship;
+        if (moving) {
+            ship = simulation.spawnShip(0, MOVING_SHIP_START_Y);
+            ship.setTargetPosition(0, 0.9f);
+        } else {
+            ship = simulation.spawnShip(0, 0);
+            ship.setTargetPosition(0, 0);
+        }
+        ship.setStats(SHIP_SPEED, 20f);
+        simulation.spawnProjectile(SHOT_START_X, offset, SHOT_END_X, offset, 1f, SHOT_SIZE, speed, true);
+
+        int maxTicks = (int) (5 / deltaTime);
+        for (int tick = 0; tick < maxTicks && simulation.getEntityStore().size(EntityKind.PROJECTILE) > 0; tick++) {
+            simulation.update(deltaTime);
+        }
+        return ship.getHealth() < 20f;
+    }
+
+    // Whether the shot and ship overlap at any moment of their continuous motion, found by
+    // sampling far more finely than any tick
+    private static boolean continuousHit(float speed, float offset, boolean moving) {
+        float flightTime = (SHOT_END_X - SHOT_START_X) / speed;
+        int samples = 100_000;
+        for (int i = 0; i <= samples; i++) {
+            if (overlaps(flightTime * i / samples, speed, offset, moving)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlaps(float time, float speed, float offset, boolean moving) {
+        float shotX = SHOT_START_X + speed * time;
+        float shipY = moving ? MOVING_SHIP_START_Y + SHIP_SPEED * time : 0;
+        float reach = (EnemyShip.SIZE + SHOT_SIZE) / 2;
+        return Math.abs(shotX) < reach && Math.abs(offset - shipY) < reach;
+    }
+}
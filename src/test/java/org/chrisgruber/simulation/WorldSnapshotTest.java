@@ -0,0 +1,109 @@
+package org.chrisgruber.simulation;
+
+import org.chrisgruber.entity.TowerAim;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Saves a world, loads it back and runs the original and the restored world side by side: the
+// restore is exact if both stay identical, past automatic spawns and tower shots.
+class WorldSnapshotTest {
+    private static final float DELTA_TIME = 1.0f / 60;
+    private static final int CHECK_TICKS = 700;
+
+    // 80% ships, 5% towers, 15% projectiles, run for a few seconds so cooldowns and health vary
+    @ParameterizedTest(name = "{0} entities")
+    @ValueSource(ints = {1_000, 10_000})
+    void restoresCrowdedWorlds(int entityCount) {
+        Random random = new Random(42);
+        float halfExtent = (float) Math.sqrt(entityCount) * 0.01f;
+        Simulation original = new Simulation(100, 42);
+        original.init();
+
+        int towers = entityCount / 20;
+        int projectiles = entityCount * 15 / 100;
+        int ships = entityCount - towers - projectiles;
+        for (int i = 0; i < ships; i++) {
+            original.spawnShip(coord(random, halfExtent), coord(random, halfExtent)).setTargetPosition(0, 0);
+        }
+        for (int i = 0; i < towers; i++) {
+            original.addTower(coord(random, halfExtent), coord(random, halfExtent));
+        }
+        for (int i = 0; i < projectiles; i++) {
+            original.spawnProjectile(coord(random, halfExtent), coord(random, halfExtent),
+                    coord(random, halfExtent), coord(random, halfExtent), 10f, 0.03f, 0.6f, true);
+        }
+        run(original, 200);
+
+        assertRunsOnIdentically(original, roundTrip(original));
+    }
+
+    @Test
+    void restoresNonDefaultBalance() {
+        Simulation original = new Simulation(100, 42);
+        original.setStats(new GameStats(0.8f, 4f, 1f, 35f, 0.09f));
+        original.init();
+        original.placeTowersOnLand(20, 42);
+        for (int i = 0; i < 50; i++) {
+            original.spawnEnemy();
+        }
+        run(original, 300);
+
+        assertRunsOnIdentically(original, roundTrip(original));
+    }
+
+    // Towers keep the aim they were placed with when the game's aim changes later
+    @Test
+    void restoresTowerAim() {
+        TowerAim[] aims = TowerAim.values();
+        for (TowerAim aim : aims) {
+            TowerAim laterAim = aims[(aim.ordinal() + 1) % aims.length];
+            Simulation original = new Simulation(100, 7);
+            original.setStats(GameStats.DEFAULT.withTowerAim(aim));
+            original.init();
+            original.placeTowersOnLand(20, 7);
+            original.setStats(GameStats.DEFAULT.withTowerAim(laterAim));
+            for (int i = 0; i < 50; i++) {
+                original.spawnEnemy();
+            }
+            run(original, 300);
+
+            Simulation restored = roundTrip(original);
+            assertEquals(laterAim, restored.getStats().getTowerAim());
+            assertRunsOnIdentically(original, restored);
+        }
+    }
+
+    static Simulation roundTrip(Simulation simulation) {
+        ByteBuffer buffer = ByteBuffer.allocate(WorldSnapshot.sizeOf(simulation));
+        WorldSnapshot.write(simulation, buffer);
+        buffer.flip();
+        return WorldSnapshot.read(buffer);
+    }
+
+    static void assertRunsOnIdentically(Simulation original, Simulation restored) {
+        assertEquals(original.checksum(), restored.checksum(), "checksum right after loading");
+        for (int tick = 1; tick <= CHECK_TICKS; tick++) {
+            original.update(DELTA_TIME);
+            restored.update(DELTA_TIME);
+            if (tick % 100 == 0) {
+                assertEquals(original.checksum(), restored.checksum(), "checksum " + tick + " ticks after loading");
+            }
+        }
+    }
+
+    private static float coord(Random random, float halfExtent) {
+        return (random.nextFloat() * 2 - 1) * halfExtent;
+    }
+
+    private static void run(Simulation simulation, int ticks) {
+        for (int tick = 0; tick < ticks; tick++) {
+            simulation.update(DELTA_TIME);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.chrisgruber.world;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkedTerrainTest {
+    private static final long SEED = 42;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rejectsChunkSizesOutsideTheIndexRange() {
+        Path file = directory.resolve("terrain.bin");
+        for (int chunkSize : new int[] {32, 100, 1 << 16}) {
+            assertThrows(IllegalArgumentException.class, () -> ChunkedTerrain.create(file, 1024, 1024, chunkSize, 4),
+                    "chunk size " + chunkSize);
+        }
+    }
+
+    // Same land as the in-memory map, both while writing and after reopening, with so few chunks
+    // resident that they are evicted and mapped again during the comparison
+    @Test
+    void matchesTheInMemoryIslandWrittenAndReopened() throws IOException {
+        int size = 1000;
+        IslandGenerator island = new IslandGenerator(size, size, SEED);
+        island.generateIsland();
+
+        Path file = directory.resolve("terrain.bin");
+        try (ChunkedTerrain terrain = ChunkedTerrain.create(file, size, size, 128, 3)) {
+            IslandGenerator.generateIsland(SEED, terrain, ForkJoinPool.commonPool());
+            assertSameCells(island, terrain, "written");
+        }
+        try (ChunkedTerrain terrain = ChunkedTerrain.open(file, 3)) {
+            assertSameCells(island, terrain, "reopened");
+            assertTrue(terrain.getLoadCount() > 64, "chunks were not evicted and mapped again");
+        }
+    }
+
+    // Paths only need the land, so a field over the chunked map matches one over the in-memory map
+    @Test
+    void flowFieldsPathOverChunkedTerrain() throws IOException {
+        int size = 200;
+        IslandGenerator island = new IslandGenerator(size, size, SEED);
+        island.generateIsland();
+
+        try (ChunkedTerrain terrain = ChunkedTerrain.create(directory.resolve("terrain.bin"), size, size, 64, 2)) {
+            IslandGenerator.generateIsland(SEED, terrain, ForkJoinPool.commonPool());
+            FlowField expected = new FlowField(island, size / 2, size / 2);
+            FlowField actual = new FlowField(terrain, size / 2, size / 2);
+            for (int cell = 0; cell < size * size; cell++) {
+                assertEquals(expected.nextCell(cell), actual.nextCell(cell), "next cell from " + cell);
+            }
+        }
+    }
+
+    // Every cell, and a ring of out-of-range cells around the map
+    private static void assertSameCells(IslandGenerator island, ChunkedTerrain terrain, String state) {
+        for (int y = -1; y <= island.getHeight(); y++) {
+            for (int x = -1; x <= island.getWidth(); x++) {
+                assertEquals(island.isLand(x, y), terrain.isLand(x, y), "land at " + x + "," + y + " " + state);
+                assertEquals(island.isWater(x, y), terrain.isWater(x, y), "water at " + x + "," + y + " " + state);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.chrisgruber.world;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Following the field from any cell must reach the target in at most one step per cell, or the
+// field has a cycle.
+class FlowFieldTest {
+    @ParameterizedTest(name = "{0}x{0}")
+    @ValueSource(ints = {100, 256, 512})
+    void everyCellReachesTheTarget(int size) {
+        IslandGenerator island = new IslandGenerator(size, size, 42);
+        island.generateIsland();
+        FlowField field = new FlowField(island, size / 2, size / 2);
+
+        int cells = size * size;
+        for (int cell = 0; cell < cells; cell++) {
+            int steps = 0;
+            int current = cell;
+            while (field.nextCell(current) >= 0 && steps <= cells) {
+                current = field.nextCell(current);
+                steps++;
+            }
+            assertEquals(field.getTargetCell(), current, "cell reached from " + cell);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.chrisgruber.world;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+// The land is a pure function of the seed: generating it on any number of threads must give
+// exactly the same bits as on one.
+class IslandGeneratorTest {
+    private static final long SEED = 42;
+    private static final int[] THREADS = {2, 3, 4};
+
+    @ParameterizedTest(name = "{0}x{0}")
+    @ValueSource(ints = {100, 1024, 2048})
+    void everyThreadCountGeneratesTheSameLand(int size) {
+        long[] expected = new long[(size * size + 63) / 64];
+        IslandGenerator.generateLand(size, size, SEED, null, expected);
+
+        for (int threads : THREADS) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            long[] bits = new long[expected.length];
+            IslandGenerator.generateLand(size, size, SEED, pool, bits);
+            pool.shutdown();
+            assertArrayEquals(expected, bits, "land bits on " + threads + " threads");
+        }
+    }
+}